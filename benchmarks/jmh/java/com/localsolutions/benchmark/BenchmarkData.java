@@ -0,0 +1,111 @@
+package com.localsolutions.benchmark;
+
+import com.localsolutions.dto.LikerDTO;
+import com.localsolutions.model.Comment;
+import com.localsolutions.model.Message;
+import com.localsolutions.model.Notification;
+import com.localsolutions.model.Post;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import com.localsolutions.model.User;
+import com.localsolutions.model.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Synthetic entity graphs shaped like production rows, built without a database.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id, UserRole role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012");
+        user.setFullName("Benchmark User " + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setMobileNumber("98" + String.format("%08d", id));
+        user.setPincode(String.valueOf(560000 + id % 100));
+        user.setRole(role);
+        user.setCreatedAt(NOW.minusDays(id % 365));
+        if (role == UserRole.BUSINESS_OWNER) {
+            user.setShopName("Shop " + id);
+            user.setBusinessCategory("PLUMBING");
+            user.setServiceArea("Area " + id % 10);
+            user.setOffersOnDemandProducts(true);
+        }
+        return user;
+    }
+
+    // A post by user 1 liked by `likers` distinct users, every fifth one a business owner
+    static Post post(long id, int likers) {
+        Post post = new Post();
+        post.setId(id);
+        post.setContent("Kitchen tap has been leaking since yesterday, looking for a plumber nearby who can come today. " + id);
+        post.setImageUrl("/uploads/" + id + ".jpg");
+        post.setType(PostType.PROBLEM);
+        post.setStatus(PostStatus.OPEN);
+        post.setCategory(PostCategory.PLUMBING);
+        post.setPincode("560001");
+        post.setUser(user(1, UserRole.CUSTOMER));
+        post.setCreatedAt(NOW.minusMinutes(id));
+        post.setUpdatedAt(NOW.minusMinutes(id));
+
+        Set<User> likedBy = new HashSet<>();
+        for (long i = 0; i < likers; i++) {
+            likedBy.add(user(1000 + i, i % 5 == 0 ? UserRole.BUSINESS_OWNER : UserRole.CUSTOMER));
+        }
+        post.setLikedBy(likedBy);
+        post.setLikeCount(likers);
+        return post;
+    }
+
+    // What PostController attaches to a single-post response: the most recent few likers
+    static List<LikerDTO> likersPreview(Post post, int size) {
+        return post.getLikedBy().stream()
+                .limit(size)
+                .map(user -> new LikerDTO(user.getId(), user.getUsername(), user.getFullName(), NOW))
+                .toList();
+    }
+
+    static Comment comment(long id, Post post) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setContent("I can come over in an hour, please share the address.");
+        comment.setUser(user(2, UserRole.BUSINESS_OWNER));
+        comment.setPost(post);
+        comment.setCreatedAt(NOW);
+        comment.setUpdatedAt(NOW);
+        return comment;
+    }
+
+    static Message message(long id) {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent("Is the tap still leaking? I have a spare washer with me.");
+        message.setSender(user(2, UserRole.BUSINESS_OWNER));
+        message.setReceiver(user(1, UserRole.CUSTOMER));
+        message.setCreatedAt(NOW);
+        return message;
+    }
+
+    static Notification notification(long id) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUser(user(1, UserRole.CUSTOMER));
+        notification.setType("POST_LIKE");
+        notification.setContent("Benchmark User 2 liked your post");
+        notification.setRelatedId(id);
+        notification.setCreatedAt(NOW);
+        return notification;
+    }
+}
@@ -0,0 +1,75 @@
+package com.localsolutions.benchmark;
+
+import com.localsolutions.dto.CommentDTO;
+import com.localsolutions.dto.MessageDTO;
+import com.localsolutions.dto.NotificationDTO;
+import com.localsolutions.dto.UserDTO;
+import com.localsolutions.model.Comment;
+import com.localsolutions.model.Message;
+import com.localsolutions.model.Notification;
+import com.localsolutions.model.User;
+import com.localsolutions.model.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The static entity to DTO factories used by the user, comment, message and notification endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private User customer;
+    private User businessOwner;
+    private Comment comment;
+    private Message message;
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        customer = BenchmarkData.user(1, UserRole.CUSTOMER);
+        businessOwner = BenchmarkData.user(2, UserRole.BUSINESS_OWNER);
+        comment = BenchmarkData.comment(1, BenchmarkData.post(1, 0));
+        message = BenchmarkData.message(1);
+        notification = BenchmarkData.notification(1);
+    }
+
+    @Benchmark
+    public UserDTO userFromCustomer() {
+        return UserDTO.fromUser(customer);
+    }
+
+    @Benchmark
+    public UserDTO userFromBusinessOwner() {
+        return UserDTO.fromUser(businessOwner);
+    }
+
+    @Benchmark
+    public CommentDTO fromComment() {
+        return CommentDTO.fromComment(comment);
+    }
+
+    @Benchmark
+    public MessageDTO fromMessage() {
+        return MessageDTO.fromMessage(message);
+    }
+
+    @Benchmark
+    public NotificationDTO fromNotification() {
+        return NotificationDTO.fromNotification(notification);
+    }
+}
@@ -0,0 +1,64 @@
+package com.localsolutions.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localsolutions.config.JacksonConfig;
+import com.localsolutions.dto.PostDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a 20-post feed page through the application's ObjectMapper.
+ * The posts have the given number of likers, which feed items only report as likeCount, so the
+ * response size printed once per fork and the allocation per operation should not grow with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "10", "100", "1000"})
+    private int likers;
+
+    private ObjectMapper objectMapper;
+    private Page<PostDTO> page;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new JacksonConfig().objectMapper(new Jackson2ObjectMapperBuilder());
+
+        List<PostDTO> posts = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            posts.add(PostDTO.fromPost(BenchmarkData.post(id, likers)));
+        }
+        page = new PageImpl<>(posts, PageRequest.of(0, PAGE_SIZE), 1000);
+
+        System.out.printf("%nFeed page with %d likers per post: %d bytes%n", likers, objectMapper.writeValueAsBytes(page).length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,68 @@
+package com.localsolutions.benchmark;
+
+import com.localsolutions.model.User;
+import com.localsolutions.model.UserRole;
+import com.localsolutions.security.AuthenticatedUser;
+import com.localsolutions.security.JwtClaims;
+import com.localsolutions.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token validation cost per authenticated request, without the principal lookup. The three-parse
+ * baseline is what the JWT filter did before {@link JwtTokenUtil#parseToken}: extractUsername,
+ * then validateToken's own extractUsername and extractExpiration, each verifying the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark_jwt_secret_key_with_enough_entropy_for_hs256_signing";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(SECRET, TimeUnit.DAYS.toMillis(1));
+        User user = BenchmarkData.user(1, UserRole.CUSTOMER);
+        token = jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean threeParses() {
+        String username = claims(token).getSubject();
+        return username.equals(claims(token).getSubject()) && !claims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public JwtClaims singleParse() {
+        return jwtTokenUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser singleParsePrincipal() {
+        return jwtTokenUtil.parseToken(token).toPrincipal();
+    }
+
+    private static Claims claims(String token) {
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+    }
+}
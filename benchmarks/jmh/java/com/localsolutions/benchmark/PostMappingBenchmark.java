@@ -0,0 +1,57 @@
+package com.localsolutions.benchmark;
+
+import com.localsolutions.dto.PostDTO;
+import com.localsolutions.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a single post, as done for the post detail, create and update responses.
+ * Only the like counter and a fixed-size likers preview are mapped, so the cost should stay flat
+ * as the number of likers grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostMappingBenchmark {
+
+    private static final int PREVIEW_SIZE = 3;
+
+    @Param({"0", "10", "100", "1000"})
+    private int likers;
+
+    private Post post;
+
+    @Setup
+    public void setUp() {
+        post = BenchmarkData.post(1, likers);
+    }
+
+    // The feed projection's mapping
+    @Benchmark
+    public PostDTO fromPost() {
+        return PostDTO.fromPost(post);
+    }
+
+    // The single-post response; in the application the preview rows come from one LIMIT query
+    @Benchmark
+    public PostDTO withLikersPreview() {
+        PostDTO dto = PostDTO.fromPost(post);
+        dto.setLikersPreview(BenchmarkData.likersPreview(post, PREVIEW_SIZE));
+        return dto;
+    }
+}
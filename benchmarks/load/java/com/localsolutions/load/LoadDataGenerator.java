@@ -0,0 +1,361 @@
+package com.localsolutions.load;
+
+import com.localsolutions.model.PostCategory;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills a migrated PostgreSQL database with synthetic users, posts, likes, comments, messages and
+ * notifications through COPY, then records the dataset for {@link LoadDriver}.
+ *
+ * <p>Everything is written in one transaction and a fixed seed gives the same data on every run.
+ * With {@code --reset} all application tables are truncated first, so point it at a dedicated database.
+ */
+public final class LoadDataGenerator {
+
+    private static final String[] PROBLEMS = {
+            "Kitchen tap has been leaking since yesterday, need a %s expert who can come today",
+            "Looking for someone reliable for %s work in our building this weekend",
+            "Power keeps tripping in the evening, can anyone recommend %s help nearby",
+            "Need a quote for %s in a two bedroom flat, urgent please",
+            "Anyone know a good %s service that works on Sundays"
+    };
+    private static final String[] SOLUTIONS = {
+            "We offer same day %s visits in this area, call or message for a free estimate",
+            "Experienced %s team available, fixed prices and no hidden charges",
+            "Weekend %s slots open, ten percent off for first time customers"
+    };
+    private static final String[] COMMENTS = {
+            "I had the same issue last month, sending you a contact",
+            "Can come over in an hour, please share the address",
+            "Is this still open? I can help tomorrow morning",
+            "Thanks, this got sorted",
+            "Following, need the same thing"
+    };
+    private static final String[] MESSAGES = {
+            "Is the work still pending? I can come by today",
+            "Sharing the address now, please call before coming",
+            "What would the total cost be including parts",
+            "Thanks for the quick help yesterday"
+    };
+
+    private final Connection connection;
+    private final LoadArgs options;
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private LoadDataGenerator(Connection connection, LoadArgs options) {
+        this.connection = connection;
+        this.options = options;
+        this.random = new Random(options.integer("seed", 42));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadArgs options = LoadArgs.parse(args);
+        String url = options.string("url", "jdbc:postgresql://localhost:5432/localsolutions_load");
+        try (Connection connection = DriverManager.getConnection(url,
+                options.string("db-user", "postgres"), options.string("db-password", "postgres"))) {
+            connection.setAutoCommit(false);
+            new LoadDataGenerator(connection, options).generate();
+        }
+    }
+
+    private void generate() throws SQLException, IOException {
+        int users = options.integer("users", 20_000);
+        int postsPerPincode = options.integer("posts-per-pincode", 2_000);
+        double likesPerPost = options.decimal("likes-per-post", 5);
+        double commentsPerPost = options.decimal("comments-per-post", 1.5);
+        int messagesPerUser = options.integer("messages-per-user", 10);
+        int notificationsPerUser = options.integer("notifications-per-user", 20);
+        int days = options.integer("days", 90);
+        String password = options.string("password", "loadtest123");
+
+        if (options.flag("reset")) {
+            execute("TRUNCATE users, posts, comments, post_likes, follows, messages, notifications RESTART IDENTITY CASCADE");
+        } else if (queryLong("SELECT count(*) FROM users WHERE username LIKE 'load\\_user\\_%'") > 0) {
+            throw new IllegalStateException("Load users already exist, run again with --reset to replace them");
+        }
+
+        List<String> pincodes = pincodes(options.integer("pincodes", 50));
+        if (users < pincodes.size()) {
+            throw new IllegalArgumentException("Need at least one user per pincode");
+        }
+        long firstUserId = queryLong("SELECT coalesce(max(id), 0) + 1 FROM users");
+        long firstPostId = queryLong("SELECT coalesce(max(id), 0) + 1 FROM posts");
+        LoadDataset dataset = new LoadDataset(firstUserId, users, "load_user_", password, pincodes, 20);
+        int posts = postsPerPincode * pincodes.size();
+
+        writeUsers(dataset, new BCryptPasswordEncoder().encode(password));
+
+        // Counters are stored on the post row, so decide how many likes and comments each post gets up front
+        int[] likeCounts = new int[posts];
+        int[] commentCounts = new int[posts];
+        for (int i = 0; i < posts; i++) {
+            // A few posts go viral, which is what the popular feeds and the likers list have to cope with
+            double boost = random.nextDouble() < 0.02 ? 20 : 1;
+            likeCounts[i] = (int) Math.min(users - 1, exponential(likesPerPost * boost));
+            commentCounts[i] = (int) exponential(commentsPerPost);
+        }
+        LocalDateTime[] postCreatedAt = writePosts(dataset, firstPostId, posts, likeCounts, commentCounts, days);
+        writeLikes(dataset, firstPostId, likeCounts, postCreatedAt);
+        writeComments(dataset, firstPostId, commentCounts, postCreatedAt);
+        writeMessages(dataset, messagesPerUser, days);
+        writeNotifications(dataset, firstPostId, posts, notificationsPerUser, days);
+
+        for (String table : List.of("users", "posts")) {
+            execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), (SELECT max(id) FROM " + table + "))");
+        }
+        connection.commit();
+
+        connection.setAutoCommit(true);
+        execute("ANALYZE");
+
+        Path datasetPath = Path.of(options.string("dataset", LoadDataset.DEFAULT_PATH.toString()));
+        dataset.write(datasetPath);
+        System.out.printf("Dataset written to %s%n", datasetPath.toAbsolutePath());
+    }
+
+    // Pincodes with known centroids come first so nearby and radius queries have neighbours to find
+    private List<String> pincodes(int count) throws SQLException {
+        Set<String> pincodes = new LinkedHashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pincode FROM pincode_locations ORDER BY pincode")) {
+            while (rs.next() && pincodes.size() < count) {
+                pincodes.add(rs.getString(1));
+            }
+        }
+        for (long i = 0; pincodes.size() < count; i++) {
+            pincodes.add(String.valueOf(110_000 + (i * 7_919) % 880_000));
+        }
+        return new ArrayList<>(pincodes);
+    }
+
+    private void writeUsers(LoadDataset dataset, String passwordHash) throws SQLException, IOException {
+        copy("users", "id, username, email, password, full_name, mobile_number, pincode, role, "
+                + "shop_name, business_category, service_area, offers_on_demand_products, created_at, updated_at", rows -> {
+            PostCategory[] categories = PostCategory.values();
+            for (int i = 0; i < dataset.users(); i++) {
+                boolean business = isBusinessOwner(i);
+                LocalDateTime createdAt = now.minusDays(365).plusSeconds(i);
+                rows.row(dataset.userId(i), dataset.username(i), dataset.username(i) + "@example.com", passwordHash,
+                        "Load User " + i, String.format("7%09d", i), dataset.pincodeOf(i),
+                        business ? "BUSINESS_OWNER" : "CUSTOMER",
+                        business ? "Shop " + i : null,
+                        business ? categories[i % categories.length].name() : null,
+                        business ? "Area " + i % 10 : null,
+                        business, createdAt, createdAt);
+            }
+        });
+    }
+
+    private LocalDateTime[] writePosts(LoadDataset dataset, long firstPostId, int posts,
+                                       int[] likeCounts, int[] commentCounts, int days) throws SQLException, IOException {
+        LocalDateTime[] createdAt = new LocalDateTime[posts];
+        long spanSeconds = days * 86_400L;
+        copy("posts", "id, content, image_url, type, status, category, pincode, user_id, "
+                + "created_at, updated_at, like_count, comment_count", rows -> {
+            PostCategory[] categories = PostCategory.values();
+            int pincodeCount = dataset.pincodes().size();
+            for (int i = 0; i < posts; i++) {
+                // Ids grow with creation time, as they do in production
+                createdAt[i] = now.minusSeconds(spanSeconds - spanSeconds * i / posts);
+                int pincode = i % pincodeCount;
+                int author = localUser(dataset, pincode);
+                PostCategory category = categories[random.nextInt(categories.length)];
+                boolean solution = isBusinessOwner(author) && random.nextDouble() < 0.7;
+                String template = solution ? pick(SOLUTIONS) : pick(PROBLEMS);
+                String status = solution ? "OPEN" : pick("OPEN", "OPEN", "IN_PROGRESS", "RESOLVED");
+                rows.row(firstPostId + i, String.format(template, category.name().toLowerCase()),
+                        random.nextDouble() < 0.3 ? "/uploads/load-" + i + ".jpg" : null,
+                        solution ? "SOLUTION" : "PROBLEM", status, category.name(), dataset.pincodes().get(pincode),
+                        dataset.userId(author), createdAt[i], createdAt[i], likeCounts[i], commentCounts[i]);
+            }
+        });
+        return createdAt;
+    }
+
+    private void writeLikes(LoadDataset dataset, long firstPostId, int[] likeCounts,
+                            LocalDateTime[] postCreatedAt) throws SQLException, IOException {
+        copy("post_likes", "post_id, user_id, created_at", rows -> {
+            Set<Integer> likers = new HashSet<>();
+            for (int i = 0; i < likeCounts.length; i++) {
+                likers.clear();
+                while (likers.size() < likeCounts[i]) {
+                    likers.add(random.nextInt(dataset.users()));
+                }
+                for (int liker : likers) {
+                    rows.row(firstPostId + i, dataset.userId(liker), after(postCreatedAt[i]));
+                }
+            }
+        });
+    }
+
+    private void writeComments(LoadDataset dataset, long firstPostId, int[] commentCounts,
+                               LocalDateTime[] postCreatedAt) throws SQLException, IOException {
+        copy("comments", "content, user_id, post_id, created_at, updated_at", rows -> {
+            int pincodeCount = dataset.pincodes().size();
+            for (int i = 0; i < commentCounts.length; i++) {
+                for (int c = 0; c < commentCounts[i]; c++) {
+                    LocalDateTime createdAt = after(postCreatedAt[i]);
+                    rows.row(pick(COMMENTS), dataset.userId(localUser(dataset, i % pincodeCount)),
+                            firstPostId + i, createdAt, createdAt);
+                }
+            }
+        });
+    }
+
+    private void writeMessages(LoadDataset dataset, int messagesPerUser, int days) throws SQLException, IOException {
+        copy("messages", "content, sender_id, receiver_id, read, created_at", rows -> {
+            for (int i = 0; i < dataset.users(); i++) {
+                for (int m = 0; m < messagesPerUser; m++) {
+                    int contact = dataset.contactOf(i, random.nextInt(dataset.contactsPerUser()));
+                    boolean outgoing = random.nextBoolean();
+                    LocalDateTime createdAt = withinDays(days);
+                    rows.row(pick(MESSAGES),
+                            dataset.userId(outgoing ? i : contact), dataset.userId(outgoing ? contact : i),
+                            createdAt.isBefore(now.minusDays(2)) || random.nextBoolean(), createdAt);
+                }
+            }
+        });
+    }
+
+    private void writeNotifications(LoadDataset dataset, long firstPostId, int posts,
+                                    int notificationsPerUser, int days) throws SQLException, IOException {
+        copy("notifications", "user_id, type, content, read, related_id, created_at", rows -> {
+            for (int i = 0; i < dataset.users(); i++) {
+                for (int n = 0; n < notificationsPerUser; n++) {
+                    String actor = "Load User " + random.nextInt(dataset.users());
+                    String type = pick("POST_LIKE", "POST_LIKE", "POST_COMMENT", "MESSAGE", "POST_SOLUTION");
+                    String content = switch (type) {
+                        case "POST_LIKE" -> actor + " liked your post";
+                        case "POST_COMMENT" -> actor + " commented on your post";
+                        case "MESSAGE" -> "New message from " + actor;
+                        default -> actor + " provided a solution to your problem";
+                    };
+                    LocalDateTime createdAt = withinDays(days);
+                    rows.row(dataset.userId(i), type, content,
+                            createdAt.isBefore(now.minusDays(3)) || random.nextDouble() < 0.7,
+                            firstPostId + random.nextInt(posts), createdAt);
+                }
+            }
+        });
+    }
+
+    private void copy(String table, String columns, RowSource source) throws SQLException, IOException {
+        long started = System.nanoTime();
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        CopyRows rows;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pg, "COPY " + table + " (" + columns + ") FROM STDIN"),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            rows = new CopyRows(out);
+            source.write(rows);
+        }
+        System.out.printf("%-14s %,12d rows in %,6d ms%n", table, rows.count, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static boolean isBusinessOwner(int user) {
+        return user % 5 == 0;
+    }
+
+    // A random user living in the given pincode
+    private int localUser(LoadDataset dataset, int pincode) {
+        int pincodeCount = dataset.pincodes().size();
+        int residents = (dataset.users() - pincode + pincodeCount - 1) / pincodeCount;
+        return pincode + pincodeCount * random.nextInt(residents);
+    }
+
+    private LocalDateTime after(LocalDateTime createdAt) {
+        LocalDateTime at = createdAt.plusSeconds(random.nextInt(3 * 86_400));
+        return at.isAfter(now) ? now : at;
+    }
+
+    private LocalDateTime withinDays(int days) {
+        return now.minusSeconds((long) (random.nextDouble() * days * 86_400));
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    private String pick(String... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        void write(CopyRows rows) throws IOException;
+    }
+
+    // COPY text format: tab separated columns, \N for null, backslash escapes in values
+    private static final class CopyRows {
+
+        private final Writer out;
+        private long count;
+
+        private CopyRows(Writer out) {
+            this.out = out;
+        }
+
+        void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                Object value = values[i];
+                if (value == null) {
+                    out.write("\\N");
+                } else {
+                    String text = value.toString();
+                    for (int c = 0; c < text.length(); c++) {
+                        char ch = text.charAt(c);
+                        switch (ch) {
+                            case '\\' -> out.write("\\\\");
+                            case '\t' -> out.write("\\t");
+                            case '\n' -> out.write("\\n");
+                            case '\r' -> out.write("\\r");
+                            default -> out.write(ch);
+                        }
+                    }
+                }
+            }
+            out.write('\n');
+            count++;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.localsolutions.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * What the generator loaded, written next to the results so the driver can address real users,
+ * pincodes and conversations without reading the database itself.
+ */
+record LoadDataset(long firstUserId, int users, String usernamePrefix, String password,
+                   List<String> pincodes, int contactsPerUser) {
+
+    static final Path DEFAULT_PATH = Path.of("target", "load", "dataset.properties");
+
+    String username(int index) {
+        return usernamePrefix + index;
+    }
+
+    long userId(int index) {
+        return firstUserId + index;
+    }
+
+    // The generator gives every user a pincode round robin, so user i lives in pincodes[i % size]
+    String pincodeOf(int index) {
+        return pincodes.get(index % pincodes.size());
+    }
+
+    // Messages only go to a user's next few neighbours, so conversations have real history
+    int contactOf(int index, int contact) {
+        return (index + 1 + contact) % users;
+    }
+
+    void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("firstUserId", Long.toString(firstUserId));
+        properties.setProperty("users", Integer.toString(users));
+        properties.setProperty("usernamePrefix", usernamePrefix);
+        properties.setProperty("password", password);
+        properties.setProperty("pincodes", String.join(",", pincodes));
+        properties.setProperty("contactsPerUser", Integer.toString(contactsPerUser));
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "Written by LoadDataGenerator");
+        }
+    }
+
+    static LoadDataset read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return new LoadDataset(
+                Long.parseLong(properties.getProperty("firstUserId")),
+                Integer.parseInt(properties.getProperty("users")),
+                properties.getProperty("usernamePrefix"),
+                properties.getProperty("password"),
+                Arrays.asList(properties.getProperty("pincodes").split(",")),
+                Integer.parseInt(properties.getProperty("contactsPerUser")));
+    }
+}
@@ -0,0 +1,320 @@
+package com.localsolutions.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localsolutions.model.PostCategory;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a weighted mix of feed, location, messaging, notification and auth requests against a running
+ * instance loaded by {@link LoadDataGenerator}, and reports throughput and an HdrHistogram latency
+ * distribution per endpoint.
+ *
+ * <p>Each worker is a closed loop bound to one logged-in user: it sends a request, waits for the full
+ * response and immediately sends the next one, so {@code --concurrency} is the number of requests in flight.
+ */
+public final class LoadDriver {
+
+    private static final String[] SEARCH_TERMS = {"leaking", "plumbing", "electrical", "weekend", "quote", "urgent"};
+    private static final PostCategory[] CATEGORIES = PostCategory.values();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final LoadArgs options;
+    private final LoadDataset dataset;
+    private final String baseUrl;
+    private final List<Endpoint> endpoints;
+    private final int[] cumulativeWeights;
+
+    private volatile boolean running = true;
+    private volatile boolean measuring = false;
+
+    private LoadDriver(LoadArgs options, LoadDataset dataset) {
+        this.options = options;
+        this.dataset = dataset;
+        this.baseUrl = options.string("base-url", "http://localhost:8080");
+        this.endpoints = endpoints(options.string("mix", ""));
+        this.cumulativeWeights = new int[endpoints.size()];
+        int total = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            total += endpoints.get(i).weight;
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Every endpoint has weight 0");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadArgs options = LoadArgs.parse(args);
+        LoadDataset dataset = LoadDataset.read(Path.of(options.string("dataset", LoadDataset.DEFAULT_PATH.toString())));
+        new LoadDriver(options, dataset).run();
+    }
+
+    private void run() throws Exception {
+        int concurrency = options.integer("concurrency", 64);
+        Duration warmup = options.duration("warmup", Duration.ofSeconds(15));
+        Duration duration = options.duration("duration", Duration.ofSeconds(60));
+        Duration interval = options.duration("report-interval", Duration.ofSeconds(10));
+        Path out = Path.of(options.string("out", "target/load"));
+
+        ExecutorService workers = workerPool(concurrency);
+        try {
+            List<Session> sessions = login(workers, Math.min(options.integer("sessions", concurrency), dataset.users()));
+            System.out.printf("Logged in %d users, running %d workers against %s (warmup %ds, measure %ds)%n",
+                    sessions.size(), concurrency, baseUrl, warmup.toSeconds(), duration.toSeconds());
+
+            List<Future<?>> loops = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                Session session = sessions.get(w % sessions.size());
+                loops.add(workers.submit(() -> loop(session)));
+            }
+
+            Thread.sleep(warmup.toMillis());
+            for (Endpoint endpoint : endpoints) {
+                endpoint.recorder.getIntervalHistogram();
+            }
+            measuring = true;
+
+            long started = System.nanoTime();
+            long end = started + duration.toNanos();
+            long previous = started;
+            while (System.nanoTime() < end) {
+                Thread.sleep(Math.min(interval.toMillis(), Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+                long at = System.nanoTime();
+                long requests = collect();
+                System.out.printf("%5ds %,10.1f req/s%n", (at - started) / 1_000_000_000,
+                        requests / ((at - previous) / 1e9));
+                previous = at;
+            }
+            measuring = false;
+            running = false;
+            double seconds = (System.nanoTime() - started) / 1e9;
+            for (Future<?> loop : loops) {
+                loop.get();
+            }
+            collect();
+            report(seconds, out);
+        } finally {
+            running = false;
+            workers.shutdownNow();
+        }
+    }
+
+    private void loop(Session session) {
+        Random random = ThreadLocalRandom.current();
+        while (running) {
+            Endpoint endpoint = pick(random);
+            try {
+                HttpRequest request = endpoint.factory.create(session, random);
+                long started = System.nanoTime();
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                endpoint.recorder.recordValue((System.nanoTime() - started) / 1_000);
+                if (response.statusCode() >= 400 && measuring) {
+                    endpoint.failed(request.method() + " " + request.uri().getPath() + " -> " + response.statusCode());
+                }
+            } catch (IOException e) {
+                if (measuring) {
+                    endpoint.failed(e.toString());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<Session> login(ExecutorService pool, int count) throws Exception {
+        List<Future<Session>> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int user = i;
+            pending.add(pool.submit(() -> {
+                HttpResponse<String> response = http.send(loginRequest(user), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Login of " + dataset.username(user) + " failed: "
+                            + response.statusCode() + " " + response.body());
+                }
+                return new Session(user, JSON.readTree(response.body()).get("token").asText());
+            }));
+        }
+        List<Session> sessions = new ArrayList<>();
+        for (Future<Session> session : pending) {
+            sessions.add(session.get());
+        }
+        return sessions;
+    }
+
+    private HttpRequest loginRequest(int user) throws IOException {
+        byte[] body = JSON.writeValueAsBytes(Map.of("email", dataset.username(user), "password", dataset.password()));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest get(Session session, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + session.token)
+                .GET()
+                .build();
+    }
+
+    // The default mix; --mix=posts.feed:40,auth.login:0 overrides single weights
+    private List<Endpoint> endpoints(String mix) {
+        List<Endpoint> all = List.of(
+                new Endpoint("posts.feed", 22, (s, r) -> get(s, "/api/posts?page=" + r.nextInt(5) + "&size=20")),
+                new Endpoint("posts.search", 5, (s, r) -> get(s, "/api/posts?size=20&search=" + pick(r, SEARCH_TERMS))),
+                new Endpoint("posts.pincode", 15, (s, r) -> get(s, "/api/posts/location/pincode/"
+                        + dataset.pincodeOf(s.user) + "?size=20")),
+                new Endpoint("posts.pincode.category", 8, (s, r) -> get(s, "/api/posts/location/pincode/"
+                        + dataset.pincodeOf(s.user) + "/category/" + CATEGORIES[r.nextInt(CATEGORIES.length)] + "?size=20")),
+                new Endpoint("posts.nearby", 8, (s, r) -> get(s, "/api/posts/location/nearby/"
+                        + dataset.pincodeOf(s.user) + "?size=20")),
+                new Endpoint("posts.popular", 5, (s, r) -> get(s, "/api/posts/location/popular/"
+                        + dataset.pincodeOf(s.user) + "?size=20")),
+                new Endpoint("messages.conversations", 6, (s, r) -> get(s, "/api/messages/conversations")),
+                new Endpoint("messages.conversation", 6, (s, r) -> get(s, "/api/messages/conversation/"
+                        + dataset.userId(dataset.contactOf(s.user, r.nextInt(dataset.contactsPerUser()))) + "?size=20")),
+                new Endpoint("messages.unread.count", 6, (s, r) -> get(s, "/api/messages/unread/count")),
+                new Endpoint("notifications", 5, (s, r) -> get(s, "/api/notifications?size=20")),
+                new Endpoint("notifications.unread", 5, (s, r) -> get(s, "/api/notifications/unread")),
+                new Endpoint("notifications.unread.count", 6, (s, r) -> get(s, "/api/notifications/unread/count")),
+                new Endpoint("auth.login", 3, (s, r) -> loginRequest(r.nextInt(dataset.users()))));
+
+        if (!mix.isBlank()) {
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.split(":");
+                all.stream().filter(e -> e.name.equals(parts[0])).findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in --mix: " + parts[0]))
+                        .weight = Integer.parseInt(parts[1]);
+            }
+        }
+        return all.stream().filter(e -> e.weight > 0).toList();
+    }
+
+    private Endpoint pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Moves what was recorded since the last call into the totals and returns the number of requests
+    private long collect() {
+        long requests = 0;
+        for (Endpoint endpoint : endpoints) {
+            Histogram interval = endpoint.recorder.getIntervalHistogram();
+            if (measuring || !running) {
+                endpoint.total.add(interval);
+                requests += interval.getTotalCount();
+            }
+        }
+        return requests;
+    }
+
+    private void report(double seconds, Path out) throws IOException {
+        Files.createDirectories(out);
+        Histogram all = new Histogram(3);
+        String header = String.format("%-28s %10s %10s %8s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<String> lines = new ArrayList<>();
+        lines.add(header);
+        for (Endpoint endpoint : endpoints) {
+            all.add(endpoint.total);
+            lines.add(line(endpoint.name, endpoint.total, seconds, endpoint.errors.sum()));
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(out.resolve(endpoint.name + ".hgrm")))) {
+                endpoint.total.outputPercentileDistribution(hgrm, 1000.0);
+            }
+            if (endpoint.lastError != null) {
+                System.out.printf("%s last error: %s%n", endpoint.name, endpoint.lastError);
+            }
+        }
+        lines.add(line("all", all, seconds, endpoints.stream().mapToLong(e -> e.errors.sum()).sum()));
+
+        String report = String.join(System.lineSeparator(), lines) + System.lineSeparator();
+        System.out.println();
+        System.out.print(report);
+        Files.writeString(out.resolve("report.txt"), report, StandardCharsets.UTF_8);
+        System.out.printf("Histograms written to %s%n", out.toAbsolutePath());
+    }
+
+    private static String line(String name, Histogram histogram, double seconds, long errors) {
+        return String.format("%-28s %,10d %,10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f", name,
+                histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // Virtual threads on Java 21+, looked up reflectively because the project targets Java 17
+    private static ExecutorService workerPool(int concurrency) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    }
+
+    private record Session(int user, String token) {
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create(Session session, Random random) throws IOException;
+    }
+
+    private static final class Endpoint {
+
+        private final String name;
+        private final RequestFactory factory;
+        // Latencies in microseconds
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        private final LongAdder errors = new LongAdder();
+        private int weight;
+        private volatile String lastError;
+
+        private Endpoint(String name, int weight, RequestFactory factory) {
+            this.name = name;
+            this.weight = weight;
+            this.factory = factory;
+        }
+
+        private void failed(String error) {
+            errors.increment();
+            lastError = error;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+-- Index plan benchmark for the hot read queries.
+--
+-- Seeds 1M posts (plus users, likes, comments, messages, notifications and token revocations) into
+-- a database that Flyway has migrated, runs EXPLAIN ANALYZE for every hot query and fails if any of
+-- them reads posts, messages, notifications, comments, post_likes or revoked_tokens with a sequential scan. Everything runs
+-- in one transaction that is rolled back, so the script can be repeated against the same database.
+--
+-- Usage, against a local, throwaway database:
+--   createdb localsolutions_bench
+--   DB_URL=jdbc:postgresql://localhost:5432/localsolutions_bench mvn spring-boot:run   (applies the migrations; stop it once started)
+--   psql -v ON_ERROR_STOP=1 -d localsolutions_bench -f benchmarks/sql/index_plans.sql
+--
+-- The query texts follow what PostQueryEngine and the Spring Data repositories send; literal
+-- values stand in for the bind parameters.
+
+BEGIN;
+
+-- 20k users spread over 2000 pincodes
+INSERT INTO users (username, email, password, full_name, mobile_number, pincode, role)
+SELECT 'bench' || g, 'bench' || g || '@bench.local', 'x', 'Bench User ' || g, 'b' || g,
+       (560000 + g % 2000)::text, 'CUSTOMER'
+FROM generate_series(1, 20000) g;
+
+CREATE TEMP TABLE bench_users ON COMMIT DROP AS
+SELECT id, row_number() OVER (ORDER BY id) AS n FROM users WHERE username LIKE 'bench%';
+
+-- 1M posts over the last year, 500 per pincode on average
+INSERT INTO posts (content, type, status, category, pincode, user_id, created_at, updated_at, like_count, comment_count)
+SELECT CASE WHEN g % 50 = 0 THEN 'leaking kitchen tap needs a plumber ' ELSE 'bench post ' END || g,
+       (ARRAY['PROBLEM', 'SOLUTION'])[1 + g % 2],
+       (ARRAY['OPEN', 'IN_PROGRESS', 'RESOLVED'])[1 + g % 3],
+       (ARRAY['GENERAL', 'PLUMBING', 'ELECTRICAL', 'CARPENTRY', 'CLEANING', 'FOOD', 'GROCERY', 'OTHER'])[1 + g % 8],
+       (560000 + g % 2000)::text,
+       u.id,
+       now() - (g || ' seconds')::interval * 31,
+       now(),
+       (g::bigint * 7919) % 200,
+       (g::bigint * 104729) % 20
+FROM generate_series(1, 1000000) g
+JOIN bench_users u ON u.n = 1 + g % 20000;
+
+CREATE TEMP TABLE bench_posts ON COMMIT DROP AS
+SELECT id, row_number() OVER (ORDER BY id) AS n FROM posts WHERE content LIKE 'bench post %' OR content LIKE 'leaking kitchen tap%';
+
+INSERT INTO post_likes (post_id, user_id)
+SELECT p.id, u.id
+FROM generate_series(1, 1000000) g
+JOIN bench_posts p ON p.n = 1 + (g * 31) % 1000000
+JOIN bench_users u ON u.n = 1 + g % 20000
+ON CONFLICT DO NOTHING;
+
+INSERT INTO comments (content, user_id, post_id)
+SELECT 'bench comment ' || g, u.id, p.id
+FROM generate_series(1, 300000) g
+JOIN bench_posts p ON p.n = 1 + (g * 17) % 1000000
+JOIN bench_users u ON u.n = 1 + g % 20000;
+
+INSERT INTO messages (content, sender_id, receiver_id, read, created_at)
+SELECT 'bench message ' || g, s.id, r.id, g % 10 <> 0, now() - (g || ' seconds')::interval
+FROM generate_series(1, 500000) g
+JOIN bench_users s ON s.n = 1 + g % 20000
+JOIN bench_users r ON r.n = 1 + (g * 7) % 20000;
+
+INSERT INTO notifications (user_id, type, content, read, related_id, created_at)
+SELECT u.id, 'POST_LIKE', 'bench notification ' || g, g % 10 <> 0, g, now() - (g || ' seconds')::interval
+FROM generate_series(1, 500000) g
+JOIN bench_users u ON u.n = 1 + g % 20000;
+
+-- 100k revocations made over the last day, each token valid for a day
+INSERT INTO revoked_tokens (token_id, expires_at_ms, revoked_at_ms)
+SELECT 'bench-' || g, t.now_ms + 86400000 - g::bigint * 864, t.now_ms - g::bigint * 864
+FROM generate_series(1, 100000) g
+CROSS JOIN (SELECT (EXTRACT(EPOCH FROM now()) * 1000)::bigint AS now_ms) t;
+
+ANALYZE users;
+ANALYZE posts;
+ANALYZE post_likes;
+ANALYZE comments;
+ANALYZE messages;
+ANALYZE notifications;
+ANALYZE revoked_tokens;
+
+CREATE TEMP TABLE bench_queries (name TEXT PRIMARY KEY, sql TEXT NOT NULL) ON COMMIT DROP;
+
+INSERT INTO bench_queries (name, sql)
+SELECT q.name, replace(replace(replace(q.sql, ':user', u.id::text), ':other', o.id::text), ':post', p.id::text)
+FROM (VALUES
+    ('feed recent',
+     'SELECT p.id FROM posts p ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed recent after cursor',
+     'SELECT p.id FROM posts p WHERE (p.created_at, p.id) < (now() - interval ''30 days'', 9223372036854775807) ORDER BY p.created_at DESC, p.id DESC LIMIT 21'),
+    ('feed popular',
+     'SELECT p.id FROM posts p ORDER BY p.like_count DESC, p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed by status',
+     'SELECT p.id FROM posts p WHERE p.status = ''OPEN'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed by categories and status',
+     'SELECT p.id FROM posts p WHERE p.status = ''OPEN'' AND p.category = ANY(CAST(''{FOOD,PLUMBING}'' AS varchar[])) ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed by type and status',
+     'SELECT p.id FROM posts p WHERE p.type = ''PROBLEM'' AND p.status = ''OPEN'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed by author',
+     'SELECT p.id FROM posts p WHERE p.user_id = :user ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode recent',
+     'SELECT p.id FROM posts p WHERE p.pincode = ''560042'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode count',
+     'SELECT COUNT(*) FROM posts p WHERE p.pincode = ''560042'''),
+    ('pincode and category',
+     'SELECT p.id FROM posts p WHERE p.category = ''FOOD'' AND p.pincode = ''560042'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode and status',
+     'SELECT p.id FROM posts p WHERE p.status = ''OPEN'' AND p.pincode = ''560042'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode, type and status',
+     'SELECT p.id FROM posts p WHERE p.type = ''PROBLEM'' AND p.status = ''OPEN'' AND p.pincode = ''560042'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode, type, status and category',
+     'SELECT p.id FROM posts p WHERE p.type = ''PROBLEM'' AND p.status = ''OPEN'' AND p.category = ''FOOD'' AND p.pincode = ''560042'' ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('pincode popular',
+     'SELECT p.id FROM posts p WHERE p.pincode = ''560042'' ORDER BY p.like_count DESC, p.created_at DESC, p.id DESC LIMIT 20'),
+    ('nearby by prefix',
+     'SELECT p.id FROM posts p WHERE substr(p.pincode, 1, 3) = substr(''560999'', 1, 3) ORDER BY p.created_at DESC, p.id DESC LIMIT 20'),
+    ('nearby by radius',
+     'SELECT p.id FROM posts p JOIN unnest(CAST(''{560040,560041,560042,560043}'' AS varchar[]), CAST(''{1.5,0.8,0,2.2}'' AS float8[])) AS n(pincode, distance_km) ON n.pincode = p.pincode ORDER BY n.distance_km, p.created_at DESC, p.id DESC LIMIT 20'),
+    ('search',
+     'SELECT p.id FROM posts p CROSS JOIN to_tsquery(''english'', ''kitch:* & leak:*'') q WHERE p.search_vector @@ q ORDER BY ts_rank(p.search_vector, q) DESC, p.created_at DESC, p.id DESC LIMIT 20'),
+    ('search in pincode',
+     'SELECT p.id FROM posts p CROSS JOIN to_tsquery(''english'', ''tap:*'') q WHERE p.pincode = ''560050'' AND p.search_vector @@ q ORDER BY ts_rank(p.search_vector, q) DESC, p.created_at DESC, p.id DESC LIMIT 20'),
+    ('feed rows by ids',
+     'SELECT p.id, u.full_name FROM posts p JOIN users u ON u.id = p.user_id WHERE p.id IN (:post, :post + 1, :post + 2)'),
+    ('post author id',
+     'SELECT p.user_id FROM posts p WHERE p.id = :post'),
+    ('post with author',
+     'SELECT p.id, u.full_name FROM posts p JOIN users u ON u.id = p.user_id WHERE p.id = :post'),
+    ('liked post ids',
+     'SELECT pl.post_id FROM post_likes pl WHERE pl.user_id = :user AND pl.post_id IN (:post, :post + 1, :post + 2)'),
+    ('likers of post',
+     'SELECT u.id, u.full_name, pl.created_at FROM post_likes pl JOIN users u ON u.id = pl.user_id WHERE pl.post_id = :post AND (pl.created_at, pl.user_id) < (now() + interval ''1 day'', 9223372036854775807) ORDER BY pl.created_at DESC, pl.user_id DESC LIMIT 21'),
+    ('comments by post',
+     'SELECT c.id FROM comments c WHERE c.post_id = :post ORDER BY c.created_at DESC'),
+    ('comments by user',
+     'SELECT c.id FROM comments c WHERE c.user_id = :user LIMIT 20'),
+    ('conversation',
+     'SELECT m.id FROM messages m WHERE (m.sender_id = :user AND m.receiver_id = :other) OR (m.sender_id = :other AND m.receiver_id = :user) ORDER BY m.created_at DESC LIMIT 20'),
+    ('unread messages count',
+     'SELECT COUNT(*) FROM messages m WHERE m.receiver_id = :user AND m.read = false'),
+    ('unread messages from sender',
+     'SELECT m.id FROM messages m WHERE m.receiver_id = :user AND m.sender_id = :other AND m.read = false'),
+    ('latest messages',
+     'SELECT m1.id FROM messages m1 WHERE m1.created_at = (SELECT MAX(m2.created_at) FROM messages m2 WHERE (m2.sender_id = m1.sender_id AND m2.receiver_id = m1.receiver_id) OR (m2.sender_id = m1.receiver_id AND m2.receiver_id = m1.sender_id)) AND (m1.sender_id = :user OR m1.receiver_id = :user) ORDER BY m1.created_at DESC'),
+    ('notifications',
+     'SELECT n.id FROM notifications n WHERE n.user_id = :user ORDER BY n.created_at DESC LIMIT 20'),
+    ('unread notifications',
+     'SELECT n.id FROM notifications n WHERE n.user_id = :user AND n.read = false ORDER BY n.created_at DESC'),
+    ('unread notifications count',
+     'SELECT COUNT(*) FROM notifications n WHERE n.user_id = :user AND n.read = false'),
+    ('unread notification counts by user',
+     'SELECT n.user_id, COUNT(*) FROM notifications n WHERE n.user_id = ANY (ARRAY[:user, :other]) AND n.read = false GROUP BY n.user_id'),
+    ('revocations since last pull',
+     'SELECT r.token_id, r.expires_at_ms, r.revoked_at_ms FROM revoked_tokens r WHERE r.revoked_at_ms > (EXTRACT(EPOCH FROM now()) * 1000)::bigint - 6000 AND r.expires_at_ms > (EXTRACT(EPOCH FROM now()) * 1000)::bigint ORDER BY r.revoked_at_ms')
+) AS q(name, sql)
+CROSS JOIN (SELECT id FROM bench_users WHERE n = 8) u
+CROSS JOIN (SELECT id FROM bench_users WHERE n = 1 + (8 * 7) % 20000) o
+CROSS JOIN (SELECT id FROM bench_posts WHERE n = 500000) p;
+
+DO $$
+DECLARE
+    query RECORD;
+    plan JSONB;
+    scanned TEXT[];
+    failed TEXT[] := '{}';
+BEGIN
+    FOR query IN SELECT name, sql FROM bench_queries ORDER BY name LOOP
+        -- Warm the cache once so the timing reflects index access rather than disk reads
+        EXECUTE 'EXPLAIN (ANALYZE, FORMAT JSON) ' || query.sql INTO plan;
+        EXECUTE 'EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ' || query.sql INTO plan;
+
+        SELECT array_agg(DISTINCT relation) INTO scanned
+        FROM jsonb_path_query(plan, 'strict $.**?(@."Node Type" == "Seq Scan")."Relation Name"') AS found(relation_json),
+             LATERAL (SELECT relation_json #>> '{}' AS relation) r
+        WHERE relation IN ('posts', 'post_likes', 'comments', 'messages', 'notifications', 'revoked_tokens');
+
+        RAISE NOTICE '% | % ms | shared hit % read %', rpad(query.name, 36),
+            lpad(to_char((plan -> 0 ->> 'Execution Time')::numeric, 'FM99990.000'), 10),
+            plan -> 0 -> 'Plan' ->> 'Shared Hit Blocks', plan -> 0 -> 'Plan' ->> 'Shared Read Blocks';
+
+        IF scanned IS NOT NULL THEN
+            failed := failed || (query.name || ' (seq scan on ' || array_to_string(scanned, ', ') || ')');
+            RAISE NOTICE '%', jsonb_pretty(plan);
+        END IF;
+    END LOOP;
+
+    IF cardinality(failed) > 0 THEN
+        RAISE EXCEPTION 'Queries without an index plan: %', array_to_string(failed, '; ');
+    END IF;
+END
+$$;
+
+ROLLBACK;
@@ -244,7 +244,7 @@ const PostCard = ({ post }) => {
           {post.liked ? <FavoriteIcon /> : <FavoriteBorderIcon />}
         </IconButton>
         <Typography variant="body2" color="text.secondary" sx={{ mr: 2 }}>
-          {post.likedBy?.length || post.likeCount || 0}
+          {post.likeCount || 0}
         </Typography>
         <IconButton
           aria-label="comment"
@@ -142,27 +142,6 @@ const Home = () => {
       // Add a delay to make sure the backend has time to process the request
       await new Promise(resolve => setTimeout(resolve, 100));
 
-      // For debugging, make a direct call to check all posts
-      try {
-        console.log('Checking all posts directly');
-        const allPostsResponse = await api.get('/posts/debug/all');
-        console.log('All posts in database:', allPostsResponse.data);
-      } catch (error) {
-        console.error('Error checking all posts:', error);
-      }
-
-      // For debugging, make a direct call to check posts by category
-      if (selectedCategories.length === 1 && !selectedCategories.includes('ALL')) {
-        try {
-          const category = selectedCategories[0];
-          console.log(`Checking posts with category ${category} directly`);
-          const response = await api.get(`/posts/debug/category/${category}`);
-          console.log(`Direct check for category ${category}:`, response.data);
-        } catch (error) {
-          console.error('Error checking posts by category:', error);
-        }
-      }
-
       const result = await refetch(params);
       console.log('API response result:', result);
       console.log('API response:', result);
@@ -447,7 +426,7 @@ const Home = () => {
                           {post.liked ? <ThumbUpIcon fontSize="small" /> : <ThumbUpIcon fontSize="small" color="action" />}
                         </IconButton>
                         <Typography variant="body2" sx={{ mr: 2 }}>
-                          {post.likedBy?.length || post.likeCount || 0}
+                          {post.likeCount || 0}
                         </Typography>
                         <IconButton size="small" color="primary">
                           <CommentIcon fontSize="small" />
@@ -55,8 +55,9 @@ const PostDetail = () => {
         setPost(response.data);
 
         // Check if user has liked the post
-        if (user && response.data.likedBy) {
-          setLiked(response.data.likedBy.some(likedUser => likedUser.id === user.id));
+        if (user) {
+          const likedResponse = await api.get(`/posts/${id}/liked`, { params: { userId: user.id } });
+          setLiked(likedResponse.data);
         }
 
         // Fetch comments
@@ -114,19 +115,13 @@ const PostDetail = () => {
 
     try {
       if (liked) {
-        await api.delete(`/posts/${id}/likes`);
+        const response = await api.delete(`/posts/${id}/likes`);
         setLiked(false);
-        setPost(prev => ({
-          ...prev,
-          likedBy: prev.likedBy.filter(likedUser => likedUser.id !== user.id)
-        }));
+        setPost(prev => ({ ...prev, likeCount: response.data.likeCount }));
       } else {
-        await api.post(`/posts/${id}/likes`);
+        const response = await api.post(`/posts/${id}/likes`);
         setLiked(true);
-        setPost(prev => ({
-          ...prev,
-          likedBy: [...(prev.likedBy || []), user]
-        }));
+        setPost(prev => ({ ...prev, likeCount: response.data.likeCount }));
       }
     } catch (error) {
       console.error('Error toggling like:', error);
@@ -272,7 +267,7 @@ const PostDetail = () => {
               {liked ? <FavoriteIcon /> : <FavoriteBorderIcon />}
             </IconButton>
             <Typography variant="body2">
-              {post.likedBy?.length || 0}
+              {post.likeCount || 0}
             </Typography>
           </Box>
         </Box>
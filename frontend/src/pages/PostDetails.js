@@ -47,8 +47,9 @@ const PostDetails = () => {
         setPost(response.data);
 
         // Check if user has liked the post
-        if (user && response.data.likedBy) {
-          setLiked(response.data.likedBy.some(likedUser => likedUser.id === user.id));
+        if (user) {
+          const likedResponse = await api.get(`/posts/${id}/liked`, { params: { userId: user.id } });
+          setLiked(likedResponse.data);
         }
 
         // Fetch comments
@@ -83,19 +84,13 @@ const PostDetails = () => {
 
     try {
       if (liked) {
-        await api.delete(`/posts/${id}/likes`);
+        const response = await api.delete(`/posts/${id}/likes`);
         setLiked(false);
-        setPost(prev => ({
-          ...prev,
-          likedBy: prev.likedBy.filter(likedUser => likedUser.id !== user.id)
-        }));
+        setPost(prev => ({ ...prev, likeCount: response.data.likeCount }));
       } else {
-        await api.post(`/posts/${id}/likes`);
+        const response = await api.post(`/posts/${id}/likes`);
         setLiked(true);
-        setPost(prev => ({
-          ...prev,
-          likedBy: [...(prev.likedBy || []), user]
-        }));
+        setPost(prev => ({ ...prev, likeCount: response.data.likeCount }));
       }
     } catch (error) {
       console.error('Error toggling like:', error);
@@ -228,7 +223,7 @@ const PostDetails = () => {
               {liked ? <ThumbUpIcon /> : <ThumbUpOutlinedIcon />}
             </IconButton>
             <Typography variant="body2">
-              {post.likedBy?.length || 0}
+              {post.likeCount || 0}
             </Typography>
           </Box>
         </Box>
@@ -0,0 +1,71 @@
+package com.localsolutions.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second-level cache regions for Hibernate, held in Caffeine through JCache.
+ * Every region is created here with a bound; Hibernate is configured to fail on
+ * a region that is not, so a new {@code @Cache} mapping has to be sized below.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String USERS_BY_USERNAME_REGION = "users-by-username";
+
+    @Value("${persistence.cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${persistence.cache.users.expire-after-write-seconds:600}")
+    private long usersExpireAfterWriteSeconds;
+
+    @Value("${persistence.cache.query.max-size:10000}")
+    private long queryMaxSize;
+
+    @Value("${persistence.cache.query.expire-after-write-seconds:600}")
+    private long queryExpireAfterWriteSeconds;
+
+    @Bean(name = "hibernateCacheManager")
+    public CacheManager hibernateCacheManager() {
+        // One manager per application context, so two contexts in a JVM never share regions
+        URI uri = URI.create("hibernate:" + Integer.toHexString(System.identityHashCode(this)));
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, getClass().getClassLoader());
+        cacheManager.createCache(USERS_REGION, bounded(usersMaxSize, usersExpireAfterWriteSeconds));
+        cacheManager.createCache(USERS_BY_USERNAME_REGION, bounded(usersMaxSize, usersExpireAfterWriteSeconds));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(queryMaxSize, queryExpireAfterWriteSeconds));
+        // Holds one timestamp per table; evicting one would let stale query results through
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, long expireAfterWriteSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds)));
+        return configuration;
+    }
+}
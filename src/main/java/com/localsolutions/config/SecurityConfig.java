@@ -2,6 +2,7 @@ package com.localsolutions.config;
 
 import com.localsolutions.security.JwtAuthenticationFilter;
 import com.localsolutions.security.JwtTokenUtil;
+import com.localsolutions.security.PrincipalCache;
 import com.localsolutions.security.TokenBlacklistService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -36,6 +37,7 @@ public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final TokenBlacklistService tokenBlacklistService;
+    private final PrincipalCache principalCache;
 
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -50,7 +52,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenUtil(), userDetailsService, tokenBlacklistService);
+        return new JwtAuthenticationFilter(jwtTokenUtil(), principalCache, tokenBlacklistService);
     }
 
     @Bean
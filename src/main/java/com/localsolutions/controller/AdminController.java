@@ -2,10 +2,10 @@ package com.localsolutions.controller;
 
 import com.localsolutions.dto.PostDTO;
 import com.localsolutions.dto.UserDTO;
-import com.localsolutions.model.Post;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.User;
 import com.localsolutions.model.UserRole;
+import com.localsolutions.service.LikedStateResolver;
 import com.localsolutions.service.PostService;
 import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
@@ -15,14 +15,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -39,6 +36,9 @@ public class AdminController {
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private LikedStateResolver likedStateResolver;
+
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboardStats() {
         try {
@@ -100,9 +100,8 @@ public class AdminController {
     public ResponseEntity<Page<PostDTO>> getAllPosts(Pageable pageable) {
         try {
             logger.info("Fetching all posts for admin");
-            Page<Post> posts = postService.getAllPosts(pageable);
-            Page<PostDTO> postDTOs = posts.map(this::convertToPostDTO);
-            return ResponseEntity.ok(postDTOs);
+            Page<PostDTO> posts = postService.getAllPosts(pageable);
+            return ResponseEntity.ok(likedStateResolver.resolve(posts));
         } catch (Exception e) {
             logger.error("Error fetching posts for admin: {}", e.getMessage());
             return ResponseEntity.badRequest().body(null);
@@ -177,44 +176,4 @@ public class AdminController {
 
         return dto;
     }
-
-    private PostDTO convertToPostDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setImageUrl(post.getImageUrl());
-        dto.setType(post.getType());
-        dto.setStatus(post.getStatus());
-        dto.setCategory(post.getCategory());
-        dto.setPincode(post.getPincode());
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setSolutionProvidedAt(post.getSolutionProvidedAt());
-
-        // Set author information
-        dto.setAuthorId(post.getUser().getId());
-        dto.setAuthorName(post.getUser().getFullName());
-
-        // Set like count
-        dto.setLikeCount(post.getLikedBy().size());
-
-        // Set comment count
-        dto.setCommentCount(post.getComments().size());
-
-        // Check if the current user has liked this post
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
-                String username = auth.getName();
-                Optional<User> currentUser = userService.getUserByUsername(username);
-                if (currentUser.isPresent()) {
-                    dto.setLiked(post.getLikedBy().contains(currentUser.get()));
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error checking if post is liked by current user", e);
-        }
-
-        return dto;
-    }
 }
@@ -2,6 +2,7 @@ package com.localsolutions.controller;
 
 import com.localsolutions.model.User;
 import com.localsolutions.model.UserRole;
+import com.localsolutions.security.JwtClaims;
 import com.localsolutions.security.JwtTokenUtil;
 import com.localsolutions.security.TokenBlacklistService;
 import com.localsolutions.service.UserService;
@@ -15,7 +16,6 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -80,11 +80,11 @@ public class AuthController {
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            // Generate JWT token
-            String jwt = jwtTokenUtil.generateToken(authentication);
-
             User user = userOpt.get();
 
+            // Generate JWT token from the loaded user so that it carries the user's ID and role claims
+            String jwt = jwtTokenUtil.generateToken(user);
+
             // Create response object
             Map<String, Object> response = new HashMap<>();
             response.put("token", jwt);
@@ -106,12 +106,9 @@ public class AuthController {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String jwt = authHeader.substring(7);
 
-                // Get token expiration time
-                Date expiryDate = jwtTokenUtil.extractExpiration(jwt);
-                long expiryTimeMillis = expiryDate.getTime();
-
-                // Add token to blacklist
-                tokenBlacklistService.blacklistToken(jwt, expiryTimeMillis);
+                // Revoke the token by its ID until it expires
+                JwtClaims claims = jwtTokenUtil.parseToken(jwt);
+                tokenBlacklistService.revoke(claims.getTokenId(), claims.getExpiresAtMillis());
 
                 // Clear security context
                 SecurityContextHolder.clearContext();
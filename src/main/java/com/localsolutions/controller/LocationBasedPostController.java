@@ -1,27 +1,22 @@
 package com.localsolutions.controller;
 
+import com.localsolutions.dto.CursorPage;
+import com.localsolutions.dto.PostCursor;
 import com.localsolutions.dto.PostDTO;
-import com.localsolutions.model.Post;
 import com.localsolutions.model.PostCategory;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.PostType;
-import com.localsolutions.model.User;
+import com.localsolutions.service.LikedStateResolver;
 import com.localsolutions.service.PostService;
-import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
-
-import java.util.stream.Collectors;
-
 @RestController
 @RequestMapping("/api/posts/location")
 @CrossOrigin(origins = "${spring.web.cors.allowed-origins}")
@@ -33,16 +28,25 @@ public class LocationBasedPostController {
     private PostService postService;
 
     @Autowired
-    private UserService userService;
+    private LikedStateResolver likedStateResolver;
 
     @GetMapping("/pincode/{pincode}")
     public ResponseEntity<Page<PostDTO>> getPostsByPincode(
             @PathVariable String pincode,
             Pageable pageable) {
         logger.info("Fetching posts by pincode: {}", pincode);
-        Page<Post> posts = postService.getPostsByPincode(pincode, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByPincode(pincode, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/pincode/{pincode}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByPincodeAfter(
+            @PathVariable String pincode,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by pincode: {} after cursor", pincode);
+        Slice<PostDTO> posts = postService.getPostsByPincodeAfter(pincode, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/pincode/{pincode}/category/{category}")
@@ -51,9 +55,19 @@ public class LocationBasedPostController {
             @PathVariable PostCategory category,
             Pageable pageable) {
         logger.info("Fetching posts by pincode: {} and category: {}", pincode, category);
-        Page<Post> posts = postService.getPostsByPincodeAndCategory(pincode, category, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByPincodeAndCategory(pincode, category, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/pincode/{pincode}/category/{category}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByPincodeAndCategoryAfter(
+            @PathVariable String pincode,
+            @PathVariable PostCategory category,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by pincode: {} and category: {} after cursor", pincode, category);
+        Slice<PostDTO> posts = postService.getPostsByPincodeAndCategoryAfter(pincode, category, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/pincode/{pincode}/type/{type}")
@@ -62,9 +76,19 @@ public class LocationBasedPostController {
             @PathVariable PostType type,
             Pageable pageable) {
         logger.info("Fetching posts by pincode: {} and type: {}", pincode, type);
-        Page<Post> posts = postService.getPostsByPincodeAndType(pincode, type, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByPincodeAndType(pincode, type, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/pincode/{pincode}/type/{type}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByPincodeAndTypeAfter(
+            @PathVariable String pincode,
+            @PathVariable PostType type,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by pincode: {} and type: {} after cursor", pincode, type);
+        Slice<PostDTO> posts = postService.getPostsByPincodeAndTypeAfter(pincode, type, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/pincode/{pincode}/type/{type}/status/{status}")
@@ -74,9 +98,20 @@ public class LocationBasedPostController {
             @PathVariable PostStatus status,
             Pageable pageable) {
         logger.info("Fetching posts by pincode: {}, type: {}, and status: {}", pincode, type, status);
-        Page<Post> posts = postService.getPostsByPincodeTypeAndStatus(pincode, type, status, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByPincodeTypeAndStatus(pincode, type, status, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/pincode/{pincode}/type/{type}/status/{status}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByPincodeTypeAndStatusAfter(
+            @PathVariable String pincode,
+            @PathVariable PostType type,
+            @PathVariable PostStatus status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by pincode: {}, type: {}, and status: {} after cursor", pincode, type, status);
+        Slice<PostDTO> posts = postService.getPostsByPincodeTypeAndStatusAfter(pincode, type, status, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/pincode/{pincode}/type/{type}/status/{status}/category/{category}")
@@ -87,9 +122,21 @@ public class LocationBasedPostController {
             @PathVariable PostCategory category,
             Pageable pageable) {
         logger.info("Fetching posts by pincode: {}, type: {}, status: {}, and category: {}", pincode, type, status, category);
-        Page<Post> posts = postService.getPostsByPincodeTypeStatusAndCategory(pincode, type, status, category, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByPincodeTypeStatusAndCategory(pincode, type, status, category, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/pincode/{pincode}/type/{type}/status/{status}/category/{category}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByPincodeTypeStatusAndCategoryAfter(
+            @PathVariable String pincode,
+            @PathVariable PostType type,
+            @PathVariable PostStatus status,
+            @PathVariable PostCategory category,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by pincode: {}, type: {}, status: {}, and category: {} after cursor", pincode, type, status, category);
+        Slice<PostDTO> posts = postService.getPostsByPincodeTypeStatusAndCategoryAfter(pincode, type, status, category, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/nearby/{pincode}")
@@ -97,9 +144,18 @@ public class LocationBasedPostController {
             @PathVariable String pincode,
             Pageable pageable) {
         logger.info("Fetching posts by nearby pincode: {}", pincode);
-        Page<Post> posts = postService.getPostsByNearbyPincode(pincode, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByNearbyPincode(pincode, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/nearby/{pincode}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByNearbyPincodeAfter(
+            @PathVariable String pincode,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by nearby pincode: {} after cursor", pincode);
+        Slice<PostDTO> posts = postService.getPostsByNearbyPincodeAfter(pincode, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/nearby/{pincode}/category/{category}")
@@ -108,9 +164,30 @@ public class LocationBasedPostController {
             @PathVariable PostCategory category,
             Pageable pageable) {
         logger.info("Fetching posts by nearby pincode: {} and category: {}", pincode, category);
-        Page<Post> posts = postService.getPostsByNearbyPincodeAndCategory(pincode, category, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPostsByNearbyPincodeAndCategory(pincode, category, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
+    }
+
+    @GetMapping(value = "/nearby/{pincode}/category/{category}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByNearbyPincodeAndCategoryAfter(
+            @PathVariable String pincode,
+            @PathVariable PostCategory category,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching posts by nearby pincode: {} and category: {} after cursor", pincode, category);
+        Slice<PostDTO> posts = postService.getPostsByNearbyPincodeAndCategoryAfter(pincode, category, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
+    }
+
+    @GetMapping("/radius/{pincode}")
+    public ResponseEntity<Page<PostDTO>> getPostsWithinRadius(
+            @PathVariable String pincode,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) PostCategory category,
+            Pageable pageable) {
+        logger.info("Fetching posts within {} km of pincode: {} and category: {}", radiusKm, pincode, category);
+        Page<PostDTO> posts = postService.getPostsWithinRadius(pincode, radiusKm, category, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
     }
 
     @GetMapping("/popular/{pincode}")
@@ -118,9 +195,8 @@ public class LocationBasedPostController {
             @PathVariable String pincode,
             Pageable pageable) {
         logger.info("Fetching popular posts by pincode: {}", pincode);
-        Page<Post> posts = postService.getPopularPostsByPincode(pincode, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
+        Page<PostDTO> posts = postService.getPopularPostsByPincode(pincode, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
     }
 
     @GetMapping("/search")
@@ -129,48 +205,7 @@ public class LocationBasedPostController {
             @RequestParam String pincode,
             Pageable pageable) {
         logger.info("Searching posts by content: {} and pincode: {}", query, pincode);
-        Page<Post> posts = postService.searchPostsByContentAndPincode(query, pincode, pageable);
-        Page<PostDTO> postDTOs = posts.map(this::convertToDTO);
-        return ResponseEntity.ok(postDTOs);
-    }
-
-    private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setImageUrl(post.getImageUrl());
-        dto.setType(post.getType());
-        dto.setStatus(post.getStatus());
-        dto.setCategory(post.getCategory());
-        dto.setPincode(post.getPincode());
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setSolutionProvidedAt(post.getSolutionProvidedAt());
-
-        // Set author information
-        dto.setAuthorId(post.getUser().getId());
-        dto.setAuthorName(post.getUser().getFullName());
-
-        // Set like count
-        dto.setLikeCount(post.getLikedBy().size());
-
-        // Set comment count
-        dto.setCommentCount(post.getComments().size());
-
-        // Check if the current user has liked this post
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
-                String username = auth.getName();
-                Optional<User> currentUser = userService.getUserByUsername(username);
-                if (currentUser.isPresent()) {
-                    dto.setLiked(post.getLikedBy().contains(currentUser.get()));
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error checking if post is liked by current user", e);
-        }
-
-        return dto;
+        Page<PostDTO> posts = postService.searchPostsByContentAndPincode(query, pincode, pageable);
+        return ResponseEntity.ok(likedStateResolver.resolve(posts));
     }
 }
@@ -3,6 +3,7 @@ package com.localsolutions.controller;
 import com.localsolutions.dto.MessageDTO;
 import com.localsolutions.model.Message;
 import com.localsolutions.model.User;
+import com.localsolutions.security.AuthenticatedUser;
 import com.localsolutions.service.MessageService;
 import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
@@ -12,8 +13,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -35,15 +35,13 @@ public class MessageController {
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> sendMessage(@RequestBody Map<String, Object> messageRequest) {
+    public ResponseEntity<?> sendMessage(@RequestBody Map<String, Object> messageRequest, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
             String content = (String) messageRequest.get("content");
             Long receiverId = Long.valueOf(messageRequest.get("receiverId").toString());
             
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User sender = userService.getUserByUsername(username)
+            // Get the current authenticated user (served by the second-level cache)
+            User sender = userService.getUserById(currentUser.getId())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
             // Get the receiver
@@ -67,14 +65,8 @@ public class MessageController {
 
     @GetMapping("/conversation/{userId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getConversation(@PathVariable Long userId, Pageable pageable) {
+    public ResponseEntity<?> getConversation(@PathVariable Long userId, Pageable pageable, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the conversation
             Page<Message> messages = messageService.getConversationPaged(currentUser.getId(), userId, pageable);
             
@@ -93,14 +85,8 @@ public class MessageController {
 
     @GetMapping("/conversations")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getConversations() {
+    public ResponseEntity<?> getConversations(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the conversations list
             List<Map<String, Object>> conversations = messageService.getConversationsList(currentUser.getId());
             
@@ -113,14 +99,8 @@ public class MessageController {
 
     @GetMapping("/unread/count")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getUnreadCount() {
+    public ResponseEntity<?> getUnreadCount(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the unread count
             long unreadCount = messageService.countUnreadMessages(currentUser.getId());
             
@@ -136,14 +116,8 @@ public class MessageController {
 
     @PutMapping("/{id}/read")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> markAsRead(@PathVariable Long id) {
+    public ResponseEntity<?> markAsRead(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the message
             Message message = messageService.getMessageById(id);
             
@@ -2,9 +2,8 @@ package com.localsolutions.controller;
 
 import com.localsolutions.dto.NotificationDTO;
 import com.localsolutions.model.Notification;
-import com.localsolutions.model.User;
+import com.localsolutions.security.AuthenticatedUser;
 import com.localsolutions.service.NotificationService;
-import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +11,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -31,19 +29,10 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
-    @Autowired
-    private UserService userService;
-
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getNotifications(Pageable pageable) {
+    public ResponseEntity<?> getNotifications(Pageable pageable, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the notifications
             Page<Notification> notifications = notificationService.getNotificationsByUserId(currentUser.getId(), pageable);
             
@@ -59,14 +48,8 @@ public class NotificationController {
 
     @GetMapping("/unread")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getUnreadNotifications() {
+    public ResponseEntity<?> getUnreadNotifications(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the unread notifications
             List<Notification> notifications = notificationService.getUnreadNotifications(currentUser.getId());
             
@@ -84,14 +67,8 @@ public class NotificationController {
 
     @GetMapping("/unread/count")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getUnreadCount() {
+    public ResponseEntity<?> getUnreadCount(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the unread count
             long unreadCount = notificationService.countUnreadNotifications(currentUser.getId());
             
@@ -107,14 +84,8 @@ public class NotificationController {
 
     @PutMapping("/{id}/read")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> markAsRead(@PathVariable Long id) {
+    public ResponseEntity<?> markAsRead(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get the notification
             Notification notification = notificationService.getNotificationById(id);
             
@@ -135,14 +106,8 @@ public class NotificationController {
 
     @PutMapping("/read-all")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> markAllAsRead() {
+    public ResponseEntity<?> markAllAsRead(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            // Get the current authenticated user
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Mark all as read
             notificationService.markAllAsRead(currentUser.getId());
             
@@ -4,6 +4,8 @@ import com.localsolutions.dto.CommentDTO;
 import com.localsolutions.model.Comment;
 import com.localsolutions.model.Post;
 import com.localsolutions.model.User;
+import com.localsolutions.model.UserRole;
+import com.localsolutions.security.AuthenticatedUser;
 import com.localsolutions.service.CommentService;
 import com.localsolutions.service.PostService;
 import com.localsolutions.service.UserService;
@@ -12,8 +14,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -65,17 +66,15 @@ public class PostCommentController {
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> createComment(@PathVariable Long postId, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> createComment(@PathVariable Long postId, @RequestBody Map<String, String> payload,
+                                           @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
             logger.info("Creating comment for post ID: {}", postId);
 
-            // Get authenticated user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            Optional<User> userOpt = userService.getUserByUsername(username);
+            // Get authenticated user (served by the second-level cache)
+            Optional<User> userOpt = userService.getUserById(currentUser.getId());
             if (!userOpt.isPresent()) {
-                logger.warn("User not found with username: {}", username);
+                logger.warn("User not found with username: {}", currentUser.getUsername());
                 return ResponseEntity.status(401).body("User not authenticated");
             }
 
@@ -114,20 +113,11 @@ public class PostCommentController {
 
     @DeleteMapping("/{commentId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> deleteComment(@PathVariable Long postId, @PathVariable Long commentId) {
+    public ResponseEntity<?> deleteComment(@PathVariable Long postId, @PathVariable Long commentId,
+                                           @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
             logger.info("Deleting comment ID: {} from post ID: {}", commentId, postId);
 
-            // Get authenticated user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            Optional<User> userOpt = userService.getUserByUsername(username);
-            if (!userOpt.isPresent()) {
-                logger.warn("User not found with username: {}", username);
-                return ResponseEntity.status(401).body("User not authenticated");
-            }
-
             // Check if comment exists
             Optional<Comment> commentOpt = commentService.getCommentById(commentId);
             if (!commentOpt.isPresent()) {
@@ -138,9 +128,9 @@ public class PostCommentController {
             Comment comment = commentOpt.get();
 
             // Check if user is the comment owner or an admin
-            if (!comment.getUser().getId().equals(userOpt.get().getId()) &&
-                !userOpt.get().getRole().toString().equals("ADMIN")) {
-                logger.warn("User {} is not authorized to delete comment {}", username, commentId);
+            if (!comment.getUser().getId().equals(currentUser.getId()) &&
+                currentUser.getRole() != UserRole.ADMIN) {
+                logger.warn("User {} is not authorized to delete comment {}", currentUser.getUsername(), commentId);
                 return ResponseEntity.status(403).body("Not authorized to delete this comment");
             }
 
@@ -1,12 +1,18 @@
 package com.localsolutions.controller;
 
+import com.localsolutions.dto.CursorPage;
+import com.localsolutions.dto.PostCursor;
 import com.localsolutions.dto.PostDTO;
-import com.localsolutions.dto.UserDTO;
 import com.localsolutions.model.Post;
 import com.localsolutions.model.PostCategory;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.PostType;
 import com.localsolutions.model.User;
+import com.localsolutions.query.PostQuery;
+import com.localsolutions.query.PostSort;
+import com.localsolutions.security.AuthenticatedUser;
+import com.localsolutions.service.LikeWriteBuffer;
+import com.localsolutions.service.LikedStateResolver;
 import com.localsolutions.service.PostService;
 import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
@@ -14,19 +20,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -42,6 +44,8 @@ public class PostController {
     private final ConcurrentHashMap<String, Long> requestCache = new ConcurrentHashMap<>();
     private static final long CACHE_EXPIRY_MS = 500; // 500ms cache
 
+    private static final int LIKERS_PREVIEW_SIZE = 3;
+
     @Autowired
     private PostService postService;
 
@@ -49,7 +53,10 @@ public class PostController {
     private UserService userService;
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private LikedStateResolver likedStateResolver;
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
 
     @GetMapping
     public ResponseEntity<Page<PostDTO>> getAllPosts(
@@ -59,17 +66,21 @@ public class PostController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String categories,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String pincode,
+            @RequestParam(required = false) PostType type) {
         try {
             // Create a cache key based on all request parameters
-            String cacheKey = String.format("posts-%d-%d-%s-%s-%s-%s-%s",
+            String cacheKey = String.format("posts-%d-%d-%s-%s-%s-%s-%s-%s-%s",
                 pageable.getPageNumber(),
                 pageable.getPageSize(),
                 search != null ? search : "",
                 filter != null ? filter : "",
                 sortBy != null ? sortBy : "",
                 categories != null ? categories : "",
-                status != null ? status : "");
+                status != null ? status : "",
+                pincode != null ? pincode : "",
+                type != null ? type : "");
 
             // Check if we've recently served this exact request
             Long lastRequestTime = requestCache.get(cacheKey);
@@ -88,175 +99,50 @@ public class PostController {
                 requestCache.entrySet().removeIf(entry -> (now - entry.getValue()) > TimeUnit.MINUTES.toMillis(5));
             }
 
-            // Apply filters based on parameters
-            Page<Post> posts;
-
             // Log all filter parameters
-            logger.info("Filter parameters - search: {}, filter: {}, sortBy: {}, category: {}, categories: {}, status: {}",
-                search, filter, sortBy, category, categories, status);
-
-            // Process categories parameter if present
-            List<PostCategory> postCategories = null;
-            if (categories != null && !categories.isEmpty()) {
-                String[] categoryArray = categories.split(",");
-                logger.info("Processing categories: {}", Arrays.toString(categoryArray));
-                postCategories = Arrays.stream(categoryArray)
-                    .map(cat -> {
-                        try {
-                            return PostCategory.valueOf(cat);
-                        } catch (IllegalArgumentException e) {
-                            logger.error("Invalid category: {}", cat);
-                            return null;
-                        }
-                    })
-                    .filter(cat -> cat != null)
-                    .collect(Collectors.toList());
-                logger.info("Converted to PostCategory list: {}", postCategories);
-            } else if (category != null && !category.isEmpty()) {
-                // Single category parameter
-                try {
-                    PostCategory postCategory = PostCategory.valueOf(category);
-                    postCategories = Collections.singletonList(postCategory);
-                    logger.info("Using single category: {}", postCategory);
-                } catch (IllegalArgumentException e) {
-                    logger.error("Invalid category: {}", category);
-                }
-            }
+            logger.info("Filter parameters - search: {}, filter: {}, sortBy: {}, category: {}, categories: {}, status: {}, pincode: {}, type: {}",
+                search, filter, sortBy, category, categories, status, pincode, type);
 
-            // Process status parameter if present
-            PostStatus postStatus = null;
-            if (status != null && !status.isEmpty() && !"ALL".equals(status)) {
-                try {
-                    postStatus = PostStatus.valueOf(status);
-                    logger.info("Using status: {}", postStatus);
-                } catch (IllegalArgumentException e) {
-                    logger.error("Invalid status: {}", status);
-                }
-            }
+            // Every parameter given narrows the same query, so filters combine instead of replacing each other
+            PostQuery query = buildQuery(search, filter, category, categories, status, pincode, type);
+            Page<PostDTO> posts = postService.findPosts(query, pageable);
 
-            // Apply filters based on parameters
-            if (search != null && !search.isEmpty()) {
-                // Search in post content
-                logger.info("Searching for posts with content containing: {}", search);
-                posts = postService.searchPosts(search, pageable);
-            } else if ("popular".equals(filter)) {
-                // Get popular posts (most liked)
-                logger.info("Getting popular posts");
-                posts = postService.getPopularPosts(pageable);
-            } else if ("recent".equals(filter)) {
-                // Get most recent posts
-                logger.info("Getting recent posts");
-                posts = postService.getRecentPosts(pageable);
-            } else if (postCategories != null && !postCategories.isEmpty() && postStatus != null) {
-                // Filter by categories and status
-                logger.info("Filtering by categories: {} and status: {}", postCategories, postStatus);
-                posts = postService.getPostsByCategoriesAndStatus(postCategories, postStatus, pageable);
-            } else if (postCategories != null && !postCategories.isEmpty()) {
-                // Filter by categories only
-                logger.info("Filtering by categories: {}", postCategories);
-                // Log all posts before filtering
-                Page<Post> allPosts = postService.getAllPosts(pageable);
-                logger.info("Total posts before filtering: {}", allPosts.getTotalElements());
-                allPosts.getContent().forEach(post -> {
-                    logger.info("Post ID: {}, Category: {}, Content: {}",
-                        post.getId(), post.getCategory(),
-                        post.getContent().length() > 50 ? post.getContent().substring(0, 50) + "..." : post.getContent());
-                });
-
-                // Direct SQL query to check what posts are in the database
-                logger.info("Executing direct SQL query to check posts");
-                List<Map<String, Object>> sqlResults = jdbcTemplate.queryForList("SELECT id, category, content FROM post");
-                sqlResults.forEach(post -> {
-                    logger.info("SQL Query - Post ID: {}, Category: {}, Content: {}",
-                        post.get("id"), post.get("category"),
-                        ((String) post.get("content")).length() > 50 ? ((String) post.get("content")).substring(0, 50) + "..." : post.get("content"));
-                });
-
-                // Direct SQL query to check posts with the specific categories
-                for (PostCategory cat : postCategories) {
-                    logger.info("Executing direct SQL query to check posts with category: {}", cat);
-                    List<Map<String, Object>> categoryResults = jdbcTemplate.queryForList(
-                        "SELECT id, category, content FROM post WHERE category = ?",
-                        cat.name());
-                    logger.info("Found {} posts with category {} using direct SQL", categoryResults.size(), cat);
-                    categoryResults.forEach(post -> {
-                        logger.info("SQL Query - Post ID: {}, Category: {}, Content: {}",
-                            post.get("id"), post.get("category"),
-                            ((String) post.get("content")).length() > 50 ? ((String) post.get("content")).substring(0, 50) + "..." : post.get("content"));
-                    });
-                }
-
-                // Now get filtered posts
-                try {
-                    // Try using the service method first
-                    posts = postService.getPostsByCategories(postCategories, pageable);
-                    logger.info("Total posts after filtering by categories {}: {}", postCategories, posts.getTotalElements());
-
-                    // If we got no results, try a direct approach
-                    if (posts.getTotalElements() == 0) {
-                        logger.info("No posts found using service method, trying direct approach");
-
-                        // Convert categories to strings
-                        List<String> categoryStrings = postCategories.stream()
-                            .map(Enum::name)
-                            .collect(Collectors.toList());
-
-                        // Build the SQL query with placeholders
-                        StringBuilder sql = new StringBuilder("SELECT * FROM post WHERE category IN (");
-                        for (int i = 0; i < categoryStrings.size(); i++) {
-                            sql.append(i > 0 ? ", ?" : "?");
-                        }
-                        sql.append(")");
-
-                        // Execute the query and log the results
-                        List<Map<String, Object>> directResults = jdbcTemplate.queryForList(
-                            sql.toString(),
-                            categoryStrings.toArray());
-
-                        logger.info("Found {} posts using direct SQL query: {}", directResults.size(), sql);
-                        directResults.forEach(post -> {
-                            logger.info("Direct SQL - Post ID: {}, Category: {}, Content: {}",
-                                post.get("id"), post.get("category"),
-                                ((String) post.get("content")).length() > 50 ? ((String) post.get("content")).substring(0, 50) + "..." : post.get("content"));
-                        });
-                    }
-                } catch (Exception e) {
-                    logger.error("Error filtering posts by categories: {}", e.getMessage());
-                    // Fallback to getting all posts
-                    posts = postService.getAllPosts(pageable);
-                    logger.info("Falling back to all posts: {}", posts.getTotalElements());
-                }
-            } else if (postStatus != null) {
-                // Filter by status only
-                logger.info("Filtering by status: {}", postStatus);
-                posts = postService.getPostsByStatus(postStatus, pageable);
-            } else {
-                // Default: get all posts
-                logger.info("No filters applied, getting all posts");
-                posts = postService.getAllPosts(pageable);
-            }
-
-            Page<PostDTO> result = posts.map(this::convertToDTO);
-            logger.info("Returning {} posts", result.getTotalElements());
-            return ResponseEntity.ok(result);
+            logger.info("Returning {} posts", posts.getTotalElements());
+            return ResponseEntity.ok(likedStateResolver.resolve(posts));
         } catch (Exception e) {
             logger.error("Error fetching posts", e);
             throw e; // Let the global exception handler deal with it
         }
     }
 
+    // Keyset variant of GET /api/posts, selected by the cursor parameter (empty for the first page)
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsAfter(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String categories,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String pincode,
+            @RequestParam(required = false) PostType type) {
+        logger.info("Fetching posts after cursor - search: {}, categories: {}, category: {}, status: {}, pincode: {}, type: {}",
+                search, categories, category, status, pincode, type);
+        // Cursor pages are always newest first
+        PostQuery query = buildQuery(search, "recent", category, categories, status, pincode, type);
+        Slice<PostDTO> posts = postService.findPostsAfter(query, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
+    }
+
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> createPost(@RequestBody Post post) {
+    public ResponseEntity<?> createPost(@RequestBody Post post, @AuthenticationPrincipal AuthenticatedUser principal) {
         try {
             logger.info("Received post creation request: {}", post);
+            logger.info("Current user: {}", principal.getUsername());
 
-            // Get the current authenticated user's username
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            logger.info("Current user: {}", username);
-
-            // Get the actual User entity from the database
-            User currentUser = userService.getUserByUsername(username)
+            // Get the actual User entity (served by the second-level cache)
+            User currentUser = userService.getUserById(principal.getId())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             logger.info("Found user in database: {}", currentUser.getId());
 
@@ -306,38 +192,19 @@ public class PostController {
         }
     }
 
-    @GetMapping("/debug/all")
-    public ResponseEntity<List<Map<String, Object>>> getAllPostsDebug() {
-        logger.info("Debug endpoint - Getting all posts");
-        List<Map<String, Object>> posts = jdbcTemplate.queryForList(
-            "SELECT id, category, content FROM post");
-        logger.info("Found {} posts using direct SQL", posts.size());
-        return ResponseEntity.ok(posts);
-    }
-
-    @GetMapping("/debug/category/{category}")
-    public ResponseEntity<List<Map<String, Object>>> getPostsByCategory(@PathVariable String category) {
-        logger.info("Debug endpoint - Getting posts with category: {}", category);
-        List<Map<String, Object>> posts = jdbcTemplate.queryForList(
-            "SELECT id, category, content FROM post WHERE category = ?",
-            category);
-        logger.info("Found {} posts with category {} using direct SQL", posts.size(), category);
-        return ResponseEntity.ok(posts);
-    }
-
     @GetMapping("/{id}")
     public ResponseEntity<PostDTO> getPostById(@PathVariable Long id) {
         return ResponseEntity.ok(convertToDTO(postService.getPostById(id)));
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("isAuthenticated() and @postService.getPostById(#id).user.id == authentication.principal.id")
+    @PreAuthorize("isAuthenticated() and @postService.getPostAuthorId(#id) == authentication.principal.id")
     public ResponseEntity<PostDTO> updatePost(@PathVariable Long id, @RequestBody Post post) {
         return ResponseEntity.ok(convertToDTO(postService.updatePost(id, post)));
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize("isAuthenticated() and (@postService.getPostById(#id).user.id == authentication.principal.id or hasRole('ADMIN'))")
+    @PreAuthorize("isAuthenticated() and (@postService.getPostAuthorId(#id) == authentication.principal.id or hasRole('ADMIN'))")
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
         postService.deletePost(id);
         return ResponseEntity.ok().build();
@@ -348,7 +215,17 @@ public class PostController {
             @PathVariable PostType type,
             @PathVariable PostStatus status,
             Pageable pageable) {
-        return ResponseEntity.ok(postService.getPostsByTypeAndStatus(type, status, pageable).map(this::convertToDTO));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getPostsByTypeAndStatus(type, status, pageable)));
+    }
+
+    @GetMapping(value = "/type/{type}/status/{status}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByTypeAndStatusAfter(
+            @PathVariable PostType type,
+            @PathVariable PostStatus status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Slice<PostDTO> posts = postService.getPostsByTypeAndStatusAfter(type, status, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/category/{category}/pincode/{pincode}")
@@ -356,22 +233,38 @@ public class PostController {
             @PathVariable PostCategory category,
             @PathVariable String pincode,
             Pageable pageable) {
-        return ResponseEntity.ok(postService.getPostsByCategoryAndPincode(category, pincode, pageable).map(this::convertToDTO));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getPostsByCategoryAndPincode(category, pincode, pageable)));
+    }
+
+    @GetMapping(value = "/category/{category}/pincode/{pincode}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByCategoryAndPincodeAfter(
+            @PathVariable PostCategory category,
+            @PathVariable String pincode,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Slice<PostDTO> posts = postService.getPostsByPincodeAndCategoryAfter(pincode, category, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<Page<PostDTO>> getPostsByUserId(@PathVariable Long userId, Pageable pageable) {
-        return ResponseEntity.ok(postService.getPostsByUserId(userId, pageable).map(this::convertToDTO));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getPostsByUserId(userId, pageable)));
+    }
+
+    @GetMapping(value = "/user/{userId}", params = "cursor")
+    public ResponseEntity<CursorPage<PostDTO>> getPostsByUserIdAfter(
+            @PathVariable Long userId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Slice<PostDTO> posts = postService.getPostsByUserIdAfter(userId, PostCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromPosts(likedStateResolver.resolve(posts)));
     }
 
     @GetMapping("/status/{status}/pincode/{pincode}")
     public ResponseEntity<List<PostDTO>> getPostsByStatusAndPincode(
             @PathVariable PostStatus status,
             @PathVariable String pincode) {
-        return ResponseEntity.ok(postService.getPostsByStatusAndPincode(status, pincode)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList()));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getPostsByStatusAndPincode(status, pincode)));
     }
 
     @GetMapping("/relevant")
@@ -381,7 +274,7 @@ public class PostController {
             @RequestParam PostStatus status,
             @RequestParam Long userId,
             Pageable pageable) {
-        return ResponseEntity.ok(postService.getRelevantPosts(type, status, userId, pageable).map(this::convertToDTO));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getRelevantPosts(type, status, userId, pageable)));
     }
 
     @GetMapping("/local/{category}/{pincode}")
@@ -391,11 +284,11 @@ public class PostController {
             @RequestParam PostType type,
             @RequestParam PostStatus status,
             Pageable pageable) {
-        return ResponseEntity.ok(postService.getLocalCategoryPosts(type, status, category, pincode, pageable).map(this::convertToDTO));
+        return ResponseEntity.ok(likedStateResolver.resolve(postService.getLocalCategoryPosts(type, status, category, pincode, pageable)));
     }
 
     @PutMapping("/{id}/status")
-    @PreAuthorize("isAuthenticated() and (@postService.getPostById(#id).user.id == authentication.principal.id or hasRole('ADMIN'))")
+    @PreAuthorize("isAuthenticated() and (@postService.getPostAuthorId(#id) == authentication.principal.id or hasRole('ADMIN'))")
     public ResponseEntity<PostDTO> updatePostStatus(
             @PathVariable Long id,
             @RequestParam PostStatus status) {
@@ -409,17 +302,15 @@ public class PostController {
     public ResponseEntity<Boolean> isPostLikedByUser(
             @PathVariable Long id,
             @RequestParam Long userId) {
-        return ResponseEntity.ok(postService.isPostLikedByUser(id, userId));
+        Boolean pending = likeWriteBuffer.isEnabled() ? likeWriteBuffer.pendingLiked(id, userId) : null;
+        return ResponseEntity.ok(pending != null ? pending : postService.isPostLikedByUser(id, userId));
     }
 
     @GetMapping("/all")
     public ResponseEntity<?> getAllPostsWithoutPagination() {
         try {
             logger.info("Attempting to fetch all posts without pagination");
-            List<Post> posts = postService.getAllPostsWithoutPagination();
-            List<PostDTO> postDTOs = posts.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<PostDTO> postDTOs = likedStateResolver.resolve(postService.getAllPostsWithoutPagination());
             logger.info("Successfully fetched {} posts", postDTOs.size());
             return ResponseEntity.ok(postDTOs);
         } catch (Exception e) {
@@ -428,52 +319,75 @@ public class PostController {
         }
     }
 
-    private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setImageUrl(post.getImageUrl());
-        dto.setType(post.getType());
-        dto.setStatus(post.getStatus());
-        dto.setCategory(post.getCategory());
-        dto.setPincode(post.getPincode());
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setSolutionProvidedAt(post.getSolutionProvidedAt());
-
-        if (post.getUser() != null) {
-            dto.setAuthorName(post.getUser().getFullName());
-            dto.setAuthorId(post.getUser().getId());
+    // Search text is ranked by relevance unless filter asks for popular or recent posts
+    private PostQuery buildQuery(String search, String filter, String category, String categories,
+                                 String status, String pincode, PostType type) {
+        PostSort sort = PostSort.RECENT;
+        if ("popular".equals(filter)) {
+            sort = PostSort.POPULAR;
+        } else if (!"recent".equals(filter) && search != null && !search.trim().isEmpty()) {
+            sort = PostSort.RELEVANCE;
         }
+        return PostQuery.builder()
+                .text(search)
+                .categories(parseCategories(categories, category))
+                .status(parseStatus(status))
+                .pincode(pincode != null && !pincode.isEmpty() ? pincode : null)
+                .type(type)
+                .sort(sort)
+                .build();
+    }
 
-        // Handle likes
-        if (post.getLikedBy() != null) {
-            Set<UserDTO> likedByDTOs = post.getLikedBy().stream()
-                .map(UserDTO::fromUser)
-                .collect(Collectors.toSet());
-            dto.setLikedBy(likedByDTOs);
-            dto.setLikeCount(likedByDTOs.size());
-
-            // Check if the current user has liked this post
-            try {
-                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-                if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
-                    String username = auth.getName();
-                    Optional<User> currentUser = userService.getUserByUsername(username);
-                    if (currentUser.isPresent()) {
-                        dto.setLiked(post.getLikedBy().contains(currentUser.get()));
+    // Parses the categories (comma-separated) or single category parameter; invalid names are skipped
+    private List<PostCategory> parseCategories(String categories, String category) {
+        List<PostCategory> postCategories = null;
+        if (categories != null && !categories.isEmpty()) {
+            String[] categoryArray = categories.split(",");
+            logger.info("Processing categories: {}", Arrays.toString(categoryArray));
+            postCategories = Arrays.stream(categoryArray)
+                .map(cat -> {
+                    try {
+                        return PostCategory.valueOf(cat);
+                    } catch (IllegalArgumentException e) {
+                        logger.error("Invalid category: {}", cat);
+                        return null;
                     }
-                }
-            } catch (Exception e) {
-                logger.error("Error checking if post is liked by current user", e);
+                })
+                .filter(cat -> cat != null)
+                .collect(Collectors.toList());
+            logger.info("Converted to PostCategory list: {}", postCategories);
+        } else if (category != null && !category.isEmpty()) {
+            // Single category parameter
+            try {
+                PostCategory postCategory = PostCategory.valueOf(category);
+                postCategories = Collections.singletonList(postCategory);
+                logger.info("Using single category: {}", postCategory);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid category: {}", category);
             }
         }
+        return postCategories;
+    }
 
-        // Handle comments
-        if (post.getComments() != null) {
-            dto.setCommentCount(post.getComments().size());
+    // Parses the status parameter; "ALL" or an invalid status means no status filter
+    private PostStatus parseStatus(String status) {
+        PostStatus postStatus = null;
+        if (status != null && !status.isEmpty() && !"ALL".equals(status)) {
+            try {
+                postStatus = PostStatus.valueOf(status);
+                logger.info("Using status: {}", postStatus);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid status: {}", status);
+            }
         }
+        return postStatus;
+    }
 
-        return dto;
+    // Single-post responses: counters come from the post row and only a short preview of the likers is
+    // loaded, so the response stays the same size however popular the post is
+    private PostDTO convertToDTO(Post post) {
+        PostDTO dto = PostDTO.fromPost(post);
+        dto.setLikersPreview(postService.getLikersPreview(post.getId(), LIKERS_PREVIEW_SIZE));
+        return likedStateResolver.resolve(List.of(dto)).get(0);
     }
 }
\ No newline at end of file
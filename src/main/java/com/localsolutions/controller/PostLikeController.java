@@ -1,23 +1,23 @@
 package com.localsolutions.controller;
 
-import com.localsolutions.dto.PostDTO;
-import com.localsolutions.dto.UserDTO;
-import com.localsolutions.model.Post;
-import com.localsolutions.model.User;
+import com.localsolutions.dto.CursorPage;
+import com.localsolutions.dto.LikerCursor;
+import com.localsolutions.dto.LikerDTO;
+import com.localsolutions.exception.ResourceNotFoundException;
+import com.localsolutions.security.AuthenticatedUser;
+import com.localsolutions.service.LikeWriteBuffer;
 import com.localsolutions.service.PostService;
-import com.localsolutions.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/posts/{postId}/likes")
@@ -30,50 +30,35 @@ public class PostLikeController {
     private PostService postService;
 
     @Autowired
-    private UserService userService;
+    private LikeWriteBuffer likeWriteBuffer;
+
+    // Who liked the post, newest first; pass nextCursor back as ?cursor= for the next page
+    @GetMapping
+    public ResponseEntity<CursorPage<LikerDTO>> getLikers(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Fetching likers of post ID: {}", postId);
+        Slice<LikerDTO> likers = postService.getLikersAfter(postId, LikerCursor.decode(cursor), size);
+        return ResponseEntity.ok(CursorPage.fromLikers(likers));
+    }
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> likePost(@PathVariable Long postId) {
+    public ResponseEntity<?> likePost(@PathVariable Long postId, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
             logger.info("Adding like to post ID: {}", postId);
 
-            // Get authenticated user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            Optional<User> userOpt = userService.getUserByUsername(username);
-            if (!userOpt.isPresent()) {
-                logger.warn("User not found with username: {}", username);
-                return ResponseEntity.status(401).body("User not authenticated");
-            }
-
-            // Check if post exists
-            Post post = postService.getPostById(postId);
-            if (post == null) {
-                logger.warn("Post not found with ID: {}", postId);
-                return ResponseEntity.notFound().build();
-            }
-
-            User user = userOpt.get();
-
-            // Check if user already liked the post
-            Set<User> likedBy = post.getLikedBy();
-            if (likedBy != null && likedBy.contains(user)) {
-                logger.info("User {} already liked post {}", username, postId);
-                return ResponseEntity.ok().build(); // Already liked, just return OK
-            }
+            // Add like (a repeat like is a no-op); buffered when write-behind is enabled
+            int likeCount = likeWriteBuffer.isEnabled()
+                    ? likeWriteBuffer.like(postId, currentUser.getId())
+                    : postService.likePost(postId, currentUser.getId());
 
-            // Add like
-            postService.likePost(postId, user.getId());
-
-            // Get the updated post
-            Post updatedPost = postService.getPostById(postId);
-            PostDTO postDTO = convertToDTO(updatedPost);
-            postDTO.setLiked(true);
-
-            logger.info("User {} liked post {}", username, postId);
-            return ResponseEntity.ok(postDTO);
+            logger.info("User {} liked post {}", currentUser.getUsername(), postId);
+            return ResponseEntity.ok(likeResponse(postId, likeCount, true));
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Post not found with ID: {}", postId);
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             logger.error("Error adding like to post ID: {}", postId, e);
             return ResponseEntity.status(500).body("Error adding like: " + e.getMessage());
@@ -82,84 +67,31 @@ public class PostLikeController {
 
     @DeleteMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> unlikePost(@PathVariable Long postId) {
+    public ResponseEntity<?> unlikePost(@PathVariable Long postId, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
             logger.info("Removing like from post ID: {}", postId);
 
-            // Get authenticated user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            Optional<User> userOpt = userService.getUserByUsername(username);
-            if (!userOpt.isPresent()) {
-                logger.warn("User not found with username: {}", username);
-                return ResponseEntity.status(401).body("User not authenticated");
-            }
-
-            // Check if post exists
-            Post post = postService.getPostById(postId);
-            if (post == null) {
-                logger.warn("Post not found with ID: {}", postId);
-                return ResponseEntity.notFound().build();
-            }
-
-            User user = userOpt.get();
+            // Remove like (unliking a post that was not liked is a no-op); buffered when write-behind is enabled
+            int likeCount = likeWriteBuffer.isEnabled()
+                    ? likeWriteBuffer.unlike(postId, currentUser.getId())
+                    : postService.unlikePost(postId, currentUser.getId());
 
-            // Check if user liked the post
-            Set<User> likedBy = post.getLikedBy();
-            if (likedBy == null || !likedBy.contains(user)) {
-                logger.info("User {} has not liked post {}", username, postId);
-                return ResponseEntity.ok().build(); // Not liked, just return OK
-            }
-
-            // Remove like
-            postService.unlikePost(postId, user.getId());
-
-            // Get the updated post
-            Post updatedPost = postService.getPostById(postId);
-            PostDTO postDTO = convertToDTO(updatedPost);
-            postDTO.setLiked(false);
-
-            logger.info("User {} unliked post {}", username, postId);
-            return ResponseEntity.ok(postDTO);
+            logger.info("User {} unliked post {}", currentUser.getUsername(), postId);
+            return ResponseEntity.ok(likeResponse(postId, likeCount, false));
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Post not found with ID: {}", postId);
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             logger.error("Error removing like from post ID: {}", postId, e);
             return ResponseEntity.status(500).body("Error removing like: " + e.getMessage());
         }
     }
 
-    private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setImageUrl(post.getImageUrl());
-        dto.setType(post.getType());
-        dto.setStatus(post.getStatus());
-        dto.setCategory(post.getCategory());
-        dto.setPincode(post.getPincode());
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setSolutionProvidedAt(post.getSolutionProvidedAt());
-
-        if (post.getUser() != null) {
-            dto.setAuthorName(post.getUser().getFullName());
-            dto.setAuthorId(post.getUser().getId());
-        }
-
-        // Handle likes
-        if (post.getLikedBy() != null) {
-            Set<UserDTO> likedByDTOs = post.getLikedBy().stream()
-                .map(UserDTO::fromUser)
-                .collect(Collectors.toSet());
-            dto.setLikedBy(likedByDTOs);
-            dto.setLikeCount(likedByDTOs.size());
-        }
-
-        // Handle comments
-        if (post.getComments() != null) {
-            dto.setCommentCount(post.getComments().size());
-        }
-
-        return dto;
+    private Map<String, Object> likeResponse(Long postId, int likeCount, boolean liked) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", postId);
+        response.put("likeCount", likeCount);
+        response.put("liked", liked);
+        return response;
     }
 }
@@ -0,0 +1,40 @@
+package com.localsolutions.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated feed. There is no total count; pass nextCursor back as
+ * ?cursor= to fetch the following page.
+ */
+@Data
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static CursorPage<PostDTO> fromPosts(Slice<PostDTO> slice) {
+        CursorPage<PostDTO> page = new CursorPage<>();
+        page.setContent(slice.getContent());
+        page.setSize(slice.getNumberOfElements());
+        page.setHasNext(slice.hasNext());
+        if (slice.hasNext()) {
+            page.setNextCursor(PostCursor.after(slice.getContent().get(slice.getNumberOfElements() - 1)).encode());
+        }
+        return page;
+    }
+
+    public static CursorPage<LikerDTO> fromLikers(Slice<LikerDTO> slice) {
+        CursorPage<LikerDTO> page = new CursorPage<>();
+        page.setContent(slice.getContent());
+        page.setSize(slice.getNumberOfElements());
+        page.setHasNext(slice.hasNext());
+        if (slice.hasNext()) {
+            page.setNextCursor(LikerCursor.after(slice.getContent().get(slice.getNumberOfElements() - 1)).encode());
+        }
+        return page;
+    }
+}
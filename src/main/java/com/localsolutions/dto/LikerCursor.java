@@ -0,0 +1,48 @@
+package com.localsolutions.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a post's likers ordered by (likedAt DESC, user id DESC).
+ * Serialized like {@link PostCursor}; an empty token means the first page.
+ */
+@Getter
+public class LikerCursor {
+
+    public static final LikerCursor FIRST = new LikerCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime likedAt;
+    private final Long userId;
+
+    public LikerCursor(LocalDateTime likedAt, Long userId) {
+        this.likedAt = likedAt;
+        this.userId = userId;
+    }
+
+    public static LikerCursor after(LikerDTO liker) {
+        return new LikerCursor(liker.getLikedAt(), liker.getId());
+    }
+
+    public static LikerCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(',');
+            return new LikerCursor(LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = likedAt + "," + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package com.localsolutions.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user who liked a post, with only what a likers list shows.
+ * Contact and business details stay behind the user endpoints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikerDTO {
+    private Long id;
+    private String username;
+    private String fullName;
+    private LocalDateTime likedAt;
+}
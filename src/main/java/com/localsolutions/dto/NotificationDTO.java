@@ -6,17 +6,24 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class NotificationDTO {
+    // Actor ids shown with an aggregated notification
+    private static final int LATEST_ACTORS = 3;
+
     private Long id;
     private String type;
     private String content;
     private boolean read;
     private Long relatedId;
     private LocalDateTime createdAt;
+    private int actorCount;
+    private List<Long> actorIds;
     private String link;
     
     public static NotificationDTO fromNotification(Notification notification) {
@@ -27,6 +34,10 @@ public class NotificationDTO {
         dto.setRead(notification.isRead());
         dto.setRelatedId(notification.getRelatedId());
         dto.setCreatedAt(notification.getCreatedAt());
+        dto.setActorCount(notification.getActorCount());
+        dto.setActorIds(notification.getActorIds() != null
+                ? Arrays.stream(notification.getActorIds()).limit(LATEST_ACTORS).toList()
+                : List.of());
         
         // Generate link based on notification type
         String link = "/";
@@ -1,14 +1,18 @@
 package com.localsolutions.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.localsolutions.model.Post;
 import com.localsolutions.model.PostCategory;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.PostType;
 import com.localsolutions.model.User;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
-import java.util.Set;
+import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class PostDTO {
     private Long id;
     private String content;
@@ -22,8 +26,53 @@ public class PostDTO {
     private LocalDateTime solutionProvidedAt;
     private String authorName;
     private Long authorId;
-    private Set<UserDTO> likedBy;
     private int likeCount;
     private int commentCount;
     private boolean liked;
-}
\ No newline at end of file
+    // Most recent likers, set only on single-post responses; the full list is paged by GET /api/posts/{id}/likes
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<LikerDTO> likersPreview;
+    // Set only by radius searches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceKm;
+
+    // Used by the feed projection queries in PostRepository
+    public PostDTO(Long id, String content, String imageUrl, PostType type, PostStatus status,
+                   PostCategory category, String pincode, LocalDateTime createdAt, LocalDateTime updatedAt,
+                   LocalDateTime solutionProvidedAt, Long authorId, String authorName,
+                   int likeCount, int commentCount) {
+        this.id = id;
+        this.content = content;
+        this.imageUrl = imageUrl;
+        this.type = type;
+        this.status = status;
+        this.category = category;
+        this.pincode = pincode;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.solutionProvidedAt = solutionProvidedAt;
+        this.authorId = authorId;
+        this.authorName = authorName;
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+    }
+
+    public static PostDTO fromPost(Post post) {
+        User author = post.getUser();
+        return new PostDTO(
+                post.getId(),
+                post.getContent(),
+                post.getImageUrl(),
+                post.getType(),
+                post.getStatus(),
+                post.getCategory(),
+                post.getPincode(),
+                post.getCreatedAt(),
+                post.getUpdatedAt(),
+                post.getSolutionProvidedAt(),
+                author != null ? author.getId() : null,
+                author != null ? author.getFullName() : null,
+                post.getLikeCount(),
+                post.getCommentCount());
+    }
+}
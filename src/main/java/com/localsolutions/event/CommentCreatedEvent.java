@@ -0,0 +1,22 @@
+package com.localsolutions.event;
+
+import lombok.Getter;
+
+/**
+ * Published by CommentServiceImpl when a new comment is saved.
+ */
+@Getter
+public class CommentCreatedEvent {
+
+    private final Long commentId;
+    private final Long postId;
+    private final Long authorId;
+    private final Long userId;
+
+    public CommentCreatedEvent(Long commentId, Long postId, Long authorId, Long userId) {
+        this.commentId = commentId;
+        this.postId = postId;
+        this.authorId = authorId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.localsolutions.event;
+
+import lombok.Getter;
+
+/**
+ * Published by NotificationServiceImpl and MessageServiceImpl when notifications or messages are marked as read.
+ */
+@Getter
+public class MarkedReadEvent {
+
+    public enum Kind {
+        NOTIFICATIONS,
+        MESSAGES
+    }
+
+    private final Kind kind;
+    private final Long userId;
+    // Rows that went from unread to read; ignored when all is set
+    private final long count;
+    // Every unread row of the user was marked
+    private final boolean all;
+
+    private MarkedReadEvent(Kind kind, Long userId, long count, boolean all) {
+        this.kind = kind;
+        this.userId = userId;
+        this.count = count;
+        this.all = all;
+    }
+
+    public static MarkedReadEvent notifications(Long userId, long count) {
+        return new MarkedReadEvent(Kind.NOTIFICATIONS, userId, count, false);
+    }
+
+    public static MarkedReadEvent allNotifications(Long userId) {
+        return new MarkedReadEvent(Kind.NOTIFICATIONS, userId, 0, true);
+    }
+
+    public static MarkedReadEvent messages(Long userId, long count) {
+        return new MarkedReadEvent(Kind.MESSAGES, userId, count, false);
+    }
+}
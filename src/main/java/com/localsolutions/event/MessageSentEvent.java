@@ -0,0 +1,20 @@
+package com.localsolutions.event;
+
+import lombok.Getter;
+
+/**
+ * Published by MessageServiceImpl when a new message is saved.
+ */
+@Getter
+public class MessageSentEvent {
+
+    private final Long messageId;
+    private final Long senderId;
+    private final Long receiverId;
+
+    public MessageSentEvent(Long messageId, Long senderId, Long receiverId) {
+        this.messageId = messageId;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+    }
+}
@@ -0,0 +1,62 @@
+package com.localsolutions.event;
+
+import com.localsolutions.model.Post;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by PostServiceImpl when a post is created, updated or deleted.
+ * Carries a snapshot of the post's values so listeners running after commit never touch the entity.
+ */
+@Getter
+public class PostChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long postId;
+    private final String content;
+    private final String pincode;
+    // Pincode before an update that moved the post; same as pincode otherwise
+    private final String previousPincode;
+    private final PostType postType;
+    private final PostCategory category;
+    private final PostStatus status;
+    private final LocalDateTime createdAt;
+
+    private PostChangedEvent(Type type, Post post, String previousPincode) {
+        this.type = type;
+        this.postId = post.getId();
+        this.content = post.getContent();
+        this.pincode = post.getPincode();
+        this.previousPincode = previousPincode;
+        this.postType = post.getType();
+        this.category = post.getCategory();
+        this.status = post.getStatus();
+        this.createdAt = post.getCreatedAt();
+    }
+
+    public static PostChangedEvent created(Post post) {
+        return new PostChangedEvent(Type.CREATED, post, post.getPincode());
+    }
+
+    public static PostChangedEvent updated(Post post) {
+        return new PostChangedEvent(Type.UPDATED, post, post.getPincode());
+    }
+
+    public static PostChangedEvent updated(Post post, String previousPincode) {
+        return new PostChangedEvent(Type.UPDATED, post, previousPincode);
+    }
+
+    public static PostChangedEvent deleted(Post post) {
+        return new PostChangedEvent(Type.DELETED, post, post.getPincode());
+    }
+}
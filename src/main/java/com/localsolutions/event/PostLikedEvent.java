@@ -0,0 +1,21 @@
+package com.localsolutions.event;
+
+import lombok.Getter;
+
+/**
+ * Published when a user's like of a post has been written, either directly or by a write-behind flush.
+ * A repeat like writes nothing and publishes nothing.
+ */
+@Getter
+public class PostLikedEvent {
+
+    private final Long postId;
+    private final Long authorId;
+    private final Long userId;
+
+    public PostLikedEvent(Long postId, Long authorId, Long userId) {
+        this.postId = postId;
+        this.authorId = authorId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.localsolutions.event;
+
+import lombok.Getter;
+
+/**
+ * Published when a post's like count has been written, either directly or by a write-behind flush.
+ */
+@Getter
+public class PostLikesChangedEvent {
+
+    private final Long postId;
+    private final String pincode;
+    private final int likeCount;
+
+    public PostLikesChangedEvent(Long postId, String pincode, int likeCount) {
+        this.postId = postId;
+        this.pincode = pincode;
+        this.likeCount = likeCount;
+    }
+}
@@ -0,0 +1,34 @@
+package com.localsolutions.event;
+
+import com.localsolutions.model.User;
+import lombok.Getter;
+
+/**
+ * Published by UserServiceImpl when a user's account is updated (role, password, profile) or deleted.
+ */
+@Getter
+public class UserChangedEvent {
+
+    public enum Type {
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final String username;
+
+    private UserChangedEvent(Type type, User user) {
+        this.type = type;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+    }
+
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(Type.UPDATED, user);
+    }
+
+    public static UserChangedEvent deleted(User user) {
+        return new UserChangedEvent(Type.DELETED, user);
+    }
+}
@@ -0,0 +1,17 @@
+package com.localsolutions.geo;
+
+import lombok.Getter;
+
+/**
+ * A pincode and its great-circle distance from the origin of a radius query.
+ */
+@Getter
+public class PincodeDistance {
+    private final String pincode;
+    private final double distanceKm;
+
+    public PincodeDistance(String pincode, double distanceKm) {
+        this.pincode = pincode;
+        this.distanceKm = distanceKm;
+    }
+}
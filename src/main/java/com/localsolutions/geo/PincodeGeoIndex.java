@@ -0,0 +1,95 @@
+package com.localsolutions.geo;
+
+import com.localsolutions.model.PincodeLocation;
+import com.localsolutions.repository.PincodeLocationRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers "which pincodes lie within r km of this one" from the pincode_locations centroids.
+ *
+ * The centroids are held in a k-d tree built once the application is ready (the table only
+ * changes through migrations). A query takes the bounding box of the circle from the tree and
+ * keeps the centroids whose haversine distance is within the radius.
+ */
+@Component
+@RequiredArgsConstructor
+public class PincodeGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PincodeGeoIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE_LATITUDE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final PincodeLocationRepository pincodeLocationRepository;
+
+    private volatile PincodeKdTree tree = new PincodeKdTree(Collections.emptyList());
+    private volatile Map<String, PincodeLocation> byPincode = Collections.emptyMap();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<PincodeLocation> locations = pincodeLocationRepository.findAll();
+            Map<String, PincodeLocation> lookup = new HashMap<>();
+            locations.forEach(location -> lookup.put(location.getPincode(), location));
+            tree = new PincodeKdTree(locations);
+            byPincode = lookup;
+            logger.info("Loaded {} pincode locations", locations.size());
+        } catch (Exception e) {
+            logger.error("Error loading pincode locations, nearby searches will use pincode prefixes", e);
+        }
+    }
+
+    public boolean contains(String pincode) {
+        return pincode != null && byPincode.containsKey(pincode);
+    }
+
+    /**
+     * Pincodes whose centroid is within radiusKm of the given pincode's centroid, nearest first.
+     * The pincode itself is included at distance 0. Empty if the pincode has no known location.
+     */
+    public List<PincodeDistance> within(String pincode, double radiusKm) {
+        PincodeLocation origin = pincode != null ? byPincode.get(pincode) : null;
+        if (origin == null) {
+            return Collections.emptyList();
+        }
+        return within(origin.getLatitude(), origin.getLongitude(), radiusKm);
+    }
+
+    public List<PincodeDistance> within(double latitude, double longitude, double radiusKm) {
+        PincodeKdTree current = tree;
+        double latDelta = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        // Near the poles the box spans every longitude
+        double lonDelta = cosLat < 1e-6 ? 180 : Math.min(180, latDelta / cosLat);
+
+        List<PincodeDistance> found = new ArrayList<>();
+        for (int node : current.range(latitude - latDelta, latitude + latDelta, longitude - lonDelta, longitude + lonDelta)) {
+            double distance = haversineKm(latitude, longitude, current.latitude(node), current.longitude(node));
+            if (distance <= radiusKm) {
+                found.add(new PincodeDistance(current.pincode(node), distance));
+            }
+        }
+        found.sort(Comparator.comparingDouble(PincodeDistance::getDistanceKm).thenComparing(PincodeDistance::getPincode));
+        return found;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.localsolutions.geo;
+
+import com.localsolutions.model.PincodeLocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Static 2-d tree over pincode centroids, stored implicitly in arrays: the node for the range
+ * [lo, hi) sits at its midpoint, split on latitude at even depths and longitude at odd depths.
+ * Immutable once built, so it can be read from any thread.
+ */
+class PincodeKdTree {
+
+    private final String[] pincodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    PincodeKdTree(List<PincodeLocation> locations) {
+        PincodeLocation[] nodes = locations.toArray(new PincodeLocation[0]);
+        build(nodes, 0, nodes.length, 0);
+        pincodes = new String[nodes.length];
+        latitudes = new double[nodes.length];
+        longitudes = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            pincodes[i] = nodes[i].getPincode();
+            latitudes[i] = nodes[i].getLatitude();
+            longitudes[i] = nodes[i].getLongitude();
+        }
+    }
+
+    int size() {
+        return pincodes.length;
+    }
+
+    /**
+     * Indexes of the centroids inside the latitude/longitude box, in no particular order.
+     */
+    List<Integer> range(double minLat, double maxLat, double minLon, double maxLon) {
+        List<Integer> found = new ArrayList<>();
+        range(0, pincodes.length, 0, minLat, maxLat, minLon, maxLon, found);
+        return found;
+    }
+
+    String pincode(int node) {
+        return pincodes[node];
+    }
+
+    double latitude(int node) {
+        return latitudes[node];
+    }
+
+    double longitude(int node) {
+        return longitudes[node];
+    }
+
+    private void range(int lo, int hi, int depth, double minLat, double maxLat, double minLon, double maxLon,
+                       List<Integer> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double lat = latitudes[mid];
+        double lon = longitudes[mid];
+        if (lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon) {
+            found.add(mid);
+        }
+        double split = depth % 2 == 0 ? lat : lon;
+        double min = depth % 2 == 0 ? minLat : minLon;
+        double max = depth % 2 == 0 ? maxLat : maxLon;
+        if (min <= split) {
+            range(lo, mid, depth + 1, minLat, maxLat, minLon, maxLon, found);
+        }
+        if (max >= split) {
+            range(mid + 1, hi, depth + 1, minLat, maxLat, minLon, maxLon, found);
+        }
+    }
+
+    private static void build(PincodeLocation[] nodes, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        Comparator<PincodeLocation> axis = depth % 2 == 0
+                ? Comparator.comparingDouble(PincodeLocation::getLatitude)
+                : Comparator.comparingDouble(PincodeLocation::getLongitude);
+        Arrays.sort(nodes, lo, hi, axis);
+        int mid = (lo + hi) >>> 1;
+        build(nodes, lo, mid, depth + 1);
+        build(nodes, mid + 1, hi, depth + 1);
+    }
+}
@@ -18,8 +18,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
+    // Sequence ids in blocks of 50 (V12) so inserts can be JDBC-batched; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_id_seq")
+    @SequenceGenerator(name = "notifications_id_seq", sequenceName = "notifications_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -39,9 +41,18 @@ public class Notification {
     @Column(name = "related_id")
     private Long relatedId;
 
+    // Time of the latest activity; an aggregated notification (V14) moves up as actors are added
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Actors collapsed into this notification and the latest of them, newest first (V14); the actors of a
+    // notification still collecting them are recorded in notification_actors (V16)
+    @Column(name = "actor_count", nullable = false)
+    private int actorCount = 1;
+
+    @Column(name = "actor_ids", columnDefinition = "bigint[]")
+    private Long[] actorIds;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
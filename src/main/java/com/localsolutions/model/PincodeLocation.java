@@ -0,0 +1,26 @@
+package com.localsolutions.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Centroid of a pincode area, loaded from db/data/pincode_locations.csv.
+ */
+@Entity
+@Table(name = "pincode_locations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PincodeLocation {
+    @Id
+    @Column(length = 10)
+    private String pincode;
+
+    @Column(nullable = false)
+    private double latitude;
+
+    @Column(nullable = false)
+    private double longitude;
+}
@@ -7,18 +7,24 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "posts")
+// Fetch plans: feeds project into PostDTO (PostRepository.FEED_SELECT), ownership checks read only
+// the author id (findAuthorIdByPostId), and a single post shown or edited loads its author with this graph
+@NamedEntityGraph(name = Post.WITH_AUTHOR, attributeNodes = @NamedAttributeNode("user"))
 @Data
 @EqualsAndHashCode(exclude = {"user", "comments", "likedBy"})
 @ToString(exclude = {"user", "comments", "likedBy"})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Post {
+    public static final String WITH_AUTHOR = "Post.withAuthor";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -44,7 +50,7 @@ public class Post {
     @Column(name = "pincode", nullable = false)
     private String pincode;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
     private User user;
@@ -53,14 +59,25 @@ public class Post {
     @JsonIgnore
     private Set<Comment> comments = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Never loaded on a request path: likes are written through PostService and read as pages of LikerDTO
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "post_likes",
         joinColumns = @JoinColumn(name = "post_id"),
         inverseJoinColumns = @JoinColumn(name = "user_id")
     )
+    @JsonIgnore
     private Set<User> likedBy = new HashSet<>();
 
+    // Denormalized counters, only ever changed through atomic UPDATEs in PostRepository
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int likeCount;
+
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int commentCount;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
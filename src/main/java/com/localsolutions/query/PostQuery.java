@@ -0,0 +1,60 @@
+package com.localsolutions.query;
+
+import com.localsolutions.geo.PincodeDistance;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Any combination of post filters plus a sort, answered by {@link PostQueryEngine} with a single
+ * statement. Unset (null or empty) filters match everything.
+ *
+ * At most one of pincode, nearby and pincodePrefix should be set; the engine applies every one
+ * that is.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class PostQuery {
+    private final PostType type;
+    private final PostStatus status;
+    // Any of
+    private final List<PostCategory> categories;
+    private final String pincode;
+    // Pincodes in range of a radius search, with their distances (see PincodeGeoIndex)
+    private final List<PincodeDistance> nearby;
+    // A pincode with no known location; posts whose first three digits match it
+    private final String pincodePrefix;
+    private final Long authorId;
+    // Free text; every term must match as a prefix
+    private final String text;
+    @Builder.Default
+    private final PostSort sort = PostSort.RECENT;
+
+    public static PostQuery all() {
+        return PostQuery.builder().build();
+    }
+
+    public boolean hasCategories() {
+        return categories != null && !categories.isEmpty();
+    }
+
+    public boolean hasNearby() {
+        return nearby != null && !nearby.isEmpty();
+    }
+
+    public boolean hasText() {
+        return text != null && !text.trim().isEmpty();
+    }
+
+    public static class PostQueryBuilder {
+
+        // A single category, or none when null
+        public PostQueryBuilder category(PostCategory category) {
+            return categories(category != null ? List.of(category) : null);
+        }
+    }
+}
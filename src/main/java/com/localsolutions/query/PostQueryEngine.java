@@ -0,0 +1,287 @@
+package com.localsolutions.query;
+
+import com.localsolutions.dto.PostCursor;
+import com.localsolutions.dto.PostDTO;
+import com.localsolutions.geo.PincodeDistance;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import com.localsolutions.search.PostSearchTokenizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a {@link PostQuery} into one SQL statement (plus a count for pages) and runs it.
+ *
+ * Only the filters that are set become predicates, so every combination is a plain conjunction
+ * the planner can match to a posts index: equality columns first, then the ORDER BY of the sort
+ * (e.g. pincode + status + RECENT uses the (pincode, type, status, created_at, id) index range).
+ * Lists are bound as arrays, so the SQL text depends only on which filters are present.
+ *
+ * The SQL for each filter shape is built once and cached; the fixed text also lets the JDBC
+ * driver reuse its server-side prepared statement for every query of that shape.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostQueryEngine {
+
+    private static final String COLUMNS = "SELECT p.id, p.content, p.image_url, p.type, p.status, p.category, p.pincode, "
+            + "p.created_at, p.updated_at, p.solution_provided_at, u.id AS author_id, u.full_name AS author_name, "
+            + "p.like_count, p.comment_count";
+
+    // Request sort properties that may be used, mapped to their columns
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "p.id",
+            "createdAt", "p.created_at",
+            "updatedAt", "p.updated_at",
+            "solutionProvidedAt", "p.solution_provided_at",
+            "likeCount", "p.like_count",
+            "commentCount", "p.comment_count");
+
+    // Filter shapes are few (a bit per filter times the orders), but request sorts are open-ended
+    private static final int MAX_CACHED_PLANS = 512;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Map<Shape, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * A page of posts. A sorted pageable overrides the query's sort; unpaged requests skip the count.
+     */
+    public Page<PostDTO> find(PostQuery query, Pageable pageable) {
+        Plan plan = plan(query, pageable.getSort(), false);
+        if (query.hasText() && PostSearchTokenizer.tokenize(query.getText()).isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        MapSqlParameterSource params = parameters(query);
+        if (pageable.isUnpaged()) {
+            List<PostDTO> posts = jdbcTemplate.query(plan.rows, params, plan.rowMapper);
+            return new PageImpl<>(posts, pageable, posts.size());
+        }
+        return page(plan, plan.rows, params, pageable, plan.rowMapper);
+    }
+
+    /**
+     * The posts after the cursor, newest first, without a count. Only RECENT queries have a keyset.
+     */
+    public Slice<PostDTO> findAfter(PostQuery query, PostCursor cursor, int size) {
+        if (query.getSort() != PostSort.RECENT) {
+            throw new IllegalArgumentException("Cursor pagination is only available for recent posts");
+        }
+        Plan plan = plan(query, Sort.unsorted(), true);
+        MapSqlParameterSource params = parameters(query)
+                .addValue("cursorCreatedAt", cursor.getCreatedAt())
+                .addValue("cursorId", cursor.getId())
+                .addValue("limit", size + 1);
+        List<PostDTO> posts = jdbcTemplate.query(plan.rows + " LIMIT :limit", params, plan.rowMapper);
+        boolean hasNext = posts.size() > size;
+        return new SliceImpl<>(hasNext ? posts.subList(0, size) : posts, Pageable.ofSize(size), hasNext);
+    }
+
+    /**
+     * A page of post IDs only, for callers that load or cache the rows themselves.
+     */
+    public Page<Long> findIds(PostQuery query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            throw new IllegalArgumentException("Post IDs are only returned a page at a time");
+        }
+        Plan plan = plan(query, pageable.getSort(), false);
+        if (query.hasText() && PostSearchTokenizer.tokenize(query.getText()).isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return page(plan, plan.ids, parameters(query), pageable, (rs, rowNum) -> rs.getLong("id"));
+    }
+
+    private <T> Page<T> page(Plan plan, String sql, MapSqlParameterSource params, Pageable pageable, RowMapper<T> mapper) {
+        Long total = jdbcTemplate.queryForObject(plan.count, params, Long.class);
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total != null ? total : 0);
+        }
+        params.addValue("limit", pageable.getPageSize()).addValue("offset", pageable.getOffset());
+        return new PageImpl<>(jdbcTemplate.query(sql + " LIMIT :limit OFFSET :offset", params, mapper), pageable, total);
+    }
+
+    private Plan plan(PostQuery query, Sort sort, boolean keyset) {
+        String orderBy = orderBy(query, sort);
+        Shape shape = new Shape(
+                query.getType() != null,
+                query.getStatus() != null,
+                query.hasCategories(),
+                query.getPincode() != null,
+                query.hasNearby(),
+                query.getPincodePrefix() != null,
+                query.getAuthorId() != null,
+                query.hasText(),
+                orderBy,
+                keyset);
+        Plan plan = plans.get(shape);
+        if (plan == null) {
+            plan = shape.build();
+            if (plans.size() < MAX_CACHED_PLANS) {
+                plans.putIfAbsent(shape, plan);
+            }
+        }
+        return plan;
+    }
+
+    private String orderBy(PostQuery query, Sort sort) {
+        if (sort.isSorted()) {
+            StringJoiner columns = new StringJoiner(", ");
+            for (Sort.Order order : sort) {
+                String column = SORTABLE.get(order.getProperty());
+                if (column == null) {
+                    throw new IllegalArgumentException("Posts cannot be sorted by " + order.getProperty());
+                }
+                columns.add(column + (order.isAscending() ? " ASC" : " DESC"));
+            }
+            return columns.toString();
+        }
+        switch (query.getSort()) {
+            case POPULAR:
+                return "p.like_count DESC, p.created_at DESC, p.id DESC";
+            case RELEVANCE:
+                if (!query.hasText()) {
+                    throw new IllegalArgumentException("Relevance order needs search text");
+                }
+                return "ts_rank(p.search_vector, q) DESC, p.created_at DESC, p.id DESC";
+            case DISTANCE:
+                if (!query.hasNearby()) {
+                    throw new IllegalArgumentException("Distance order needs a location");
+                }
+                return "n.distance_km, p.created_at DESC, p.id DESC";
+            default:
+                return "p.created_at DESC, p.id DESC";
+        }
+    }
+
+    private MapSqlParameterSource parameters(PostQuery query) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (query.getType() != null) {
+            params.addValue("type", query.getType().name());
+        }
+        if (query.getStatus() != null) {
+            params.addValue("status", query.getStatus().name());
+        }
+        if (query.hasCategories()) {
+            params.addValue("categories", query.getCategories().stream().map(Enum::name).toArray(String[]::new));
+        }
+        if (query.getPincode() != null) {
+            params.addValue("pincode", query.getPincode());
+        }
+        if (query.hasNearby()) {
+            params.addValue("nearbyPincodes", query.getNearby().stream().map(PincodeDistance::getPincode).toArray(String[]::new));
+            params.addValue("nearbyDistances", query.getNearby().stream().map(PincodeDistance::getDistanceKm).toArray(Double[]::new));
+        }
+        if (query.getPincodePrefix() != null) {
+            params.addValue("pincodePrefix", query.getPincodePrefix());
+        }
+        if (query.getAuthorId() != null) {
+            params.addValue("authorId", query.getAuthorId());
+        }
+        if (query.hasText()) {
+            // Every term must match; ":*" makes each a prefix match
+            List<String> terms = PostSearchTokenizer.tokenize(query.getText());
+            params.addValue("tsQuery", terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & ")));
+        }
+        return params;
+    }
+
+    private static PostDTO mapRow(ResultSet rs, boolean distance) throws SQLException {
+        PostDTO post = new PostDTO(
+                rs.getLong("id"),
+                rs.getString("content"),
+                rs.getString("image_url"),
+                PostType.valueOf(rs.getString("type")),
+                PostStatus.valueOf(rs.getString("status")),
+                PostCategory.valueOf(rs.getString("category")),
+                rs.getString("pincode"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("updated_at")),
+                toLocalDateTime(rs.getTimestamp("solution_provided_at")),
+                rs.getLong("author_id"),
+                rs.getString("author_name"),
+                rs.getInt("like_count"),
+                rs.getInt("comment_count"));
+        if (distance) {
+            post.setDistanceKm(rs.getDouble("distance_km"));
+        }
+        return post;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    // rowMapper reads distance_km when the rows select it
+    private record Plan(String rows, String ids, String count, RowMapper<PostDTO> rowMapper) {
+    }
+
+    // Which filters are present, the resolved ORDER BY, and whether a keyset predicate is added
+    private record Shape(boolean type, boolean status, boolean categories, boolean pincode, boolean nearby,
+                         boolean pincodePrefix, boolean author, boolean text, String orderBy, boolean keyset) {
+
+        private Plan build() {
+            StringBuilder from = new StringBuilder(" FROM posts p");
+            if (nearby) {
+                from.append(" JOIN unnest(CAST(:nearbyPincodes AS varchar[]), CAST(:nearbyDistances AS float8[]))"
+                        + " AS n(pincode, distance_km) ON n.pincode = p.pincode");
+            }
+            if (text) {
+                from.append(" CROSS JOIN to_tsquery('english', :tsQuery) q");
+            }
+
+            List<String> where = new ArrayList<>();
+            if (type) {
+                where.add("p.type = :type");
+            }
+            if (status) {
+                where.add("p.status = :status");
+            }
+            if (categories) {
+                where.add("p.category = ANY(CAST(:categories AS varchar[]))");
+            }
+            if (pincode) {
+                where.add("p.pincode = :pincode");
+            }
+            if (pincodePrefix) {
+                // Matches the substr(pincode, 1, 3) expression index
+                where.add("substr(p.pincode, 1, 3) = substr(:pincodePrefix, 1, 3)");
+            }
+            if (author) {
+                where.add("p.user_id = :authorId");
+            }
+            if (text) {
+                where.add("p.search_vector @@ q");
+            }
+            String filters = where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where);
+            String seek = keyset ? (where.isEmpty() ? " WHERE " : " AND ") + "(p.created_at, p.id) < (:cursorCreatedAt, :cursorId)" : "";
+
+            // The author join is only needed for the selected columns, not for IDs or the count
+            String rows = COLUMNS + (nearby ? ", n.distance_km" : "") + from + " JOIN users u ON u.id = p.user_id"
+                    + filters + seek + " ORDER BY " + orderBy;
+            String ids = "SELECT p.id" + from + filters + seek + " ORDER BY " + orderBy;
+            String count = "SELECT COUNT(*)" + from + filters;
+            return new Plan(rows, ids, count, (rs, rowNum) -> mapRow(rs, nearby));
+        }
+    }
+}
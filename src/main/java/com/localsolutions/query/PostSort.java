@@ -0,0 +1,16 @@
+package com.localsolutions.query;
+
+/**
+ * Result orders a {@link PostQuery} can ask for. Each one ends in a column order that one of the
+ * posts indexes already provides.
+ */
+public enum PostSort {
+    /** Newest first: created_at DESC, id DESC. */
+    RECENT,
+    /** Most liked first, newest among equals. */
+    POPULAR,
+    /** Best text match first; needs a text filter. */
+    RELEVANCE,
+    /** Nearest pincode first; needs a nearby pincode set. */
+    DISTANCE
+}
@@ -3,6 +3,7 @@ package com.localsolutions.repository;
 import com.localsolutions.model.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,9 +11,14 @@ import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    // Commenters are read after the service transaction has ended, where batch fetching no longer
+    // applies, so they are joined here instead of being loaded one query per comment
+    @EntityGraph(attributePaths = "user")
     Page<Comment> findByPostId(Long postId, Pageable pageable);
+
     Page<Comment> findByUserId(Long userId, Pageable pageable);
 
     // Get all comments for a post without pagination
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByPostIdOrderByCreatedAtDesc(Long postId);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.localsolutions.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -30,6 +31,11 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Count unread messages for a user
     long countByReceiverIdAndReadFalse(Long receiverId);
     
+    // Mark the unread messages a user received from one sender as read
+    @Modifying
+    @Query("UPDATE Message m SET m.read = true WHERE m.receiver.id = :receiverId AND m.sender.id = :senderId AND m.read = false")
+    int markConversationAsRead(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId);
+    
     // Find all conversations for a user
     @Query("SELECT DISTINCT CASE WHEN m.sender.id = :userId THEN m.receiver ELSE m.sender END FROM Message m WHERE m.sender.id = :userId OR m.receiver.id = :userId")
     List<Object> findConversationPartners(@Param("userId") Long userId);
@@ -22,7 +22,8 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     long countByUserIdAndReadFalse(Long userId);
     
+    // Only unread rows, so rows that are already read are not rewritten
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId")
-    void markAllAsRead(@Param("userId") Long userId);
+    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId AND n.read = false")
+    int markAllAsRead(@Param("userId") Long userId);
 }
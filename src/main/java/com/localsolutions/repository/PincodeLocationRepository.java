@@ -0,0 +1,9 @@
+package com.localsolutions.repository;
+
+import com.localsolutions.model.PincodeLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PincodeLocationRepository extends JpaRepository<PincodeLocation, String> {
+}
@@ -0,0 +1,317 @@
+package com.localsolutions.search;
+
+import com.localsolutions.geo.PincodeDistance;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import com.localsolutions.query.PostQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over post content.
+ *
+ * Posts are numbered with dense document numbers. Each term keeps a sorted int posting list, whose
+ * length is the term's document frequency. Type, category and status facets are bitmaps; pincodes, which
+ * have many values, use posting lists. A search ORs the postings of every term matching each query
+ * prefix, ANDs the results across terms and facets, and ranks the hits by summed IDF.
+ *
+ * Reads share a lock; updates take it exclusively.
+ */
+class InMemoryPostIndex {
+
+    private static final int[] NO_TERMS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term dictionary, sorted so that a prefix maps to a contiguous range of terms
+    private final TreeMap<String, Integer> termIds = new TreeMap<>();
+    private final List<IntPostings> postings = new ArrayList<>();
+
+    private final Map<Long, Integer> docByPostId = new HashMap<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private long[] postIds = new long[1024];
+    private long[] createdAt = new long[1024];
+    private int[][] docTerms = new int[1024][];
+    private String[] docPincode = new String[1024];
+    private int docCount;
+
+    private final BitSet[] byType = newBitSets(PostType.values().length);
+    private final BitSet[] byCategory = newBitSets(PostCategory.values().length);
+    private final BitSet[] byStatus = newBitSets(PostStatus.values().length);
+    private final Map<String, IntPostings> byPincode = new HashMap<>();
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docByPostId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a post, replacing any previous version of it.
+     */
+    void index(PostSearchDocument post) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByPostId.get(post.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                unlink(doc);
+            } else {
+                doc = freeDocs.isEmpty() ? docCount++ : freeDocs.pop();
+                ensureCapacity(doc);
+                docByPostId.put(post.getId(), doc);
+            }
+
+            List<String> tokens = PostSearchTokenizer.tokenize(post.getContent());
+            int[] terms = new int[tokens.size()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = termId(tokens.get(i));
+            }
+            terms = Arrays.stream(terms).sorted().distinct().toArray();
+            for (int term : terms) {
+                postings.get(term).add(doc);
+            }
+
+            postIds[doc] = post.getId();
+            createdAt[doc] = post.getCreatedAt() != null ? post.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0;
+            docTerms[doc] = terms;
+            docPincode[doc] = post.getPincode();
+            if (post.getPincode() != null) {
+                byPincode.computeIfAbsent(post.getPincode(), p -> new IntPostings()).add(doc);
+            }
+            if (post.getType() != null) {
+                byType[post.getType().ordinal()].set(doc);
+            }
+            if (post.getCategory() != null) {
+                byCategory[post.getCategory().ordinal()].set(doc);
+            }
+            if (post.getStatus() != null) {
+                byStatus[post.getStatus().ordinal()].set(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByPostId.remove(postId);
+            if (doc != null) {
+                unlink(doc);
+                freeDocs.push(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answers the text, type, status, category, pincode and nearby filters of the query, ranked by
+     * relevance. Author and pincode prefix filters are not indexed here.
+     */
+    Page<Long> search(PostQuery query, Pageable pageable) {
+        List<String> tokens = PostSearchTokenizer.tokenize(query.getText());
+        if (tokens.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            // Each query token becomes the union of all terms it prefixes, weighted by IDF
+            Map<Integer, Double> termWeights = new HashMap<>();
+            BitSet hits = null;
+            for (String token : tokens.stream().distinct().toList()) {
+                SortedMap<String, Integer> matching = termIds.subMap(token, token + Character.MAX_VALUE);
+                BitSet tokenHits = new BitSet();
+                for (int term : matching.values()) {
+                    IntPostings list = postings.get(term);
+                    if (list.size() > 0) {
+                        list.addTo(tokenHits);
+                        termWeights.put(term, Math.log(1.0 + (double) docByPostId.size() / list.size()));
+                    }
+                }
+                if (hits == null) {
+                    hits = tokenHits;
+                } else {
+                    hits.and(tokenHits);
+                }
+                if (hits.isEmpty()) {
+                    return new PageImpl<>(Collections.emptyList(), pageable, 0);
+                }
+            }
+
+            if (query.getPincode() != null && !query.getPincode().isEmpty()) {
+                IntPostings pincodeDocs = byPincode.get(query.getPincode());
+                if (pincodeDocs == null) {
+                    return new PageImpl<>(Collections.emptyList(), pageable, 0);
+                }
+                pincodeDocs.retainIn(hits);
+            }
+            if (query.hasNearby()) {
+                BitSet anyPincode = new BitSet();
+                for (PincodeDistance nearby : query.getNearby()) {
+                    IntPostings pincodeDocs = byPincode.get(nearby.getPincode());
+                    if (pincodeDocs != null) {
+                        pincodeDocs.addTo(anyPincode);
+                    }
+                }
+                hits.and(anyPincode);
+            }
+            if (query.getType() != null) {
+                hits.and(byType[query.getType().ordinal()]);
+            }
+            if (query.hasCategories()) {
+                BitSet anyCategory = new BitSet();
+                query.getCategories().forEach(category -> anyCategory.or(byCategory[category.ordinal()]));
+                hits.and(anyCategory);
+            }
+            if (query.getStatus() != null) {
+                hits.and(byStatus[query.getStatus().ordinal()]);
+            }
+
+            // Matched terms sorted by id with their weights, for allocation-free scoring
+            int[] weightedTerms = termWeights.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            double[] weights = new double[weightedTerms.length];
+            for (int i = 0; i < weightedTerms.length; i++) {
+                weights[i] = termWeights.get(weightedTerms[i]);
+            }
+
+            int total = hits.cardinality();
+            long wanted = pageable.getOffset() + pageable.getPageSize();
+            if (total == 0 || pageable.getOffset() >= total) {
+                return new PageImpl<>(Collections.emptyList(), pageable, total);
+            }
+
+            // Keep only the best offset + size hits; the heap's head is the worst of them. Newer posts
+            // mostly have higher document numbers, so walking backwards rarely displaces the head.
+            PriorityQueue<Hit> best = new PriorityQueue<>();
+            for (int doc = hits.length() - 1; doc >= 0; doc = hits.previousSetBit(doc - 1)) {
+                double score = 0;
+                for (int term : docTerms[doc]) {
+                    int pos = Arrays.binarySearch(weightedTerms, term);
+                    if (pos >= 0) {
+                        score += weights[pos];
+                    }
+                }
+                if (best.size() < wanted) {
+                    best.add(new Hit(score, createdAt[doc], postIds[doc]));
+                } else if (Hit.compare(score, createdAt[doc], postIds[doc], best.peek()) > 0) {
+                    best.poll();
+                    best.add(new Hit(score, createdAt[doc], postIds[doc]));
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(best);
+            ranked.sort(Collections.reverseOrder());
+            List<Long> ids = new ArrayList<>();
+            for (int i = (int) pageable.getOffset(); i < ranked.size(); i++) {
+                ids.add(ranked.get(i).postId);
+            }
+            return new PageImpl<>(ids, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Removes a document from every posting list and facet; its number stays assigned
+    private void unlink(int doc) {
+        for (int term : docTerms[doc]) {
+            postings.get(term).remove(doc);
+        }
+        docTerms[doc] = NO_TERMS;
+        if (docPincode[doc] != null) {
+            IntPostings pincodeDocs = byPincode.get(docPincode[doc]);
+            pincodeDocs.remove(doc);
+            if (pincodeDocs.size() == 0) {
+                byPincode.remove(docPincode[doc]);
+            }
+            docPincode[doc] = null;
+        }
+        for (BitSet type : byType) {
+            type.clear(doc);
+        }
+        for (BitSet category : byCategory) {
+            category.clear(doc);
+        }
+        for (BitSet status : byStatus) {
+            status.clear(doc);
+        }
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = postings.size();
+            termIds.put(term, id);
+            postings.add(new IntPostings());
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc >= postIds.length) {
+            int capacity = Math.max(doc + 1, postIds.length * 2);
+            postIds = Arrays.copyOf(postIds, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docPincode = Arrays.copyOf(docPincode, capacity);
+        }
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+
+    // Ordered by score, then creation time, then post ID; greater is better
+    private static final class Hit implements Comparable<Hit> {
+        private final double score;
+        private final long createdAt;
+        private final long postId;
+
+        private Hit(double score, long createdAt, long postId) {
+            this.score = score;
+            this.createdAt = createdAt;
+            this.postId = postId;
+        }
+
+        private static int compare(double score, long createdAt, long postId, Hit other) {
+            int result = Double.compare(score, other.score);
+            if (result == 0) {
+                result = Long.compare(createdAt, other.createdAt);
+            }
+            return result != 0 ? result : Long.compare(postId, other.postId);
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            return compare(score, createdAt, postId, other);
+        }
+    }
+}
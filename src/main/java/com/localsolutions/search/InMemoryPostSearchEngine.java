@@ -0,0 +1,129 @@
+package com.localsolutions.search;
+
+import com.localsolutions.event.PostChangedEvent;
+import com.localsolutions.query.PostQuery;
+import com.localsolutions.query.PostSort;
+import com.localsolutions.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search answered from an in-JVM inverted index (post.search.engine=memory), for deployments
+ * where the full-text column and GIN index cannot be used.
+ *
+ * The index is built from PostRepository in id-ordered batches once the application is ready and
+ * then kept current from post change events after each commit. Events that arrive during the build
+ * are held and applied once it has finished, in the order they arrived, so a post read by the build
+ * before a later change or delete never outlives that change. Until the build finishes, searches
+ * go to the database engine, as do queries the index cannot answer (author or pincode prefix
+ * filters, or an order other than relevance).
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "post.search.engine", havingValue = "memory")
+public class InMemoryPostSearchEngine implements PostSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryPostSearchEngine.class);
+
+    private final PostRepository postRepository;
+    private final PostgresPostSearchEngine databaseEngine;
+    private final InMemoryPostIndex index = new InMemoryPostIndex();
+    private volatile boolean ready;
+    // Guards deferred
+    private final Object lock = new Object();
+    // Change events held while the index is being built; null once it has been
+    private List<PostChangedEvent> deferred = new ArrayList<>();
+
+    @Value("${post.search.memory.build-batch-size:5000}")
+    private int buildBatchSize;
+
+    public InMemoryPostSearchEngine(PostRepository postRepository, PostgresPostSearchEngine databaseEngine) {
+        this.postRepository = postRepository;
+        this.databaseEngine = databaseEngine;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        synchronized (lock) {
+            if (deferred == null) {
+                deferred = new ArrayList<>();
+            }
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long afterId = 0;
+            List<PostSearchDocument> batch;
+            do {
+                batch = postRepository.findSearchDocumentsAfter(afterId, PageRequest.of(0, buildBatchSize));
+                batch.forEach(index::index);
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == buildBatchSize);
+            int replayed;
+            synchronized (lock) {
+                replayed = deferred.size();
+                deferred.forEach(this::apply);
+                deferred = null;
+            }
+            ready = true;
+            logger.info("Built in-memory post search index: {} posts in {} ms, {} changes applied after the build",
+                    index.size(), System.currentTimeMillis() - start, replayed);
+        } catch (Exception e) {
+            synchronized (lock) {
+                deferred = null;
+            }
+            logger.error("Error building in-memory post search index, searches will use the database", e);
+        }
+    }
+
+    // Runs after commit so the index never sees a change that was rolled back
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        synchronized (lock) {
+            if (deferred != null) {
+                deferred.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(PostChangedEvent event) {
+        if (event.getType() == PostChangedEvent.Type.DELETED) {
+            index.remove(event.getPostId());
+        } else {
+            index.index(PostSearchDocument.fromEvent(event));
+        }
+    }
+
+    @Override
+    public Page<Long> search(PostQuery query, Pageable pageable) {
+        if (!ready || !isIndexed(query, pageable)) {
+            return databaseEngine.search(query, pageable);
+        }
+        return index.search(query, pageable);
+    }
+
+    private static boolean isIndexed(PostQuery query, Pageable pageable) {
+        return query.getAuthorId() == null
+                && query.getPincodePrefix() == null
+                && query.getSort() == PostSort.RELEVANCE
+                && pageable.getSort().isUnsorted()
+                && pageable.isPaged();
+    }
+}
@@ -0,0 +1,66 @@
+package com.localsolutions.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A sorted set of document numbers backed by a primitive int array.
+ */
+class IntPostings {
+
+    private int[] docs = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(int doc) {
+        // Documents are mostly numbered in insertion order, so appending is the common case
+        if (size == 0 || docs[size - 1] < doc) {
+            ensureCapacity();
+            docs[size++] = doc;
+            return;
+        }
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity();
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        docs[insertAt] = doc;
+        size++;
+    }
+
+    void remove(int doc) {
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0) {
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    void addTo(BitSet target) {
+        for (int i = 0; i < size; i++) {
+            target.set(docs[i]);
+        }
+    }
+
+    // Keeps only the target bits that are also in this set
+    void retainIn(BitSet target) {
+        BitSet mask = new BitSet();
+        for (int i = 0; i < size; i++) {
+            if (target.get(docs[i])) {
+                mask.set(docs[i]);
+            }
+        }
+        target.and(mask);
+    }
+
+    private void ensureCapacity() {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+        }
+    }
+}
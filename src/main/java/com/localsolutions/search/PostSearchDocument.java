@@ -0,0 +1,40 @@
+package com.localsolutions.search;
+
+import com.localsolutions.event.PostChangedEvent;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a post that the in-memory search index needs.
+ */
+@Getter
+public class PostSearchDocument {
+    private final Long id;
+    private final String content;
+    private final String pincode;
+    private final PostType type;
+    private final PostCategory category;
+    private final PostStatus status;
+    private final LocalDateTime createdAt;
+
+    // Used by PostRepository.findSearchDocumentsAfter
+    public PostSearchDocument(Long id, String content, String pincode, PostType type, PostCategory category,
+                              PostStatus status, LocalDateTime createdAt) {
+        this.id = id;
+        this.content = content;
+        this.pincode = pincode;
+        this.type = type;
+        this.category = category;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    public static PostSearchDocument fromEvent(PostChangedEvent event) {
+        return new PostSearchDocument(event.getPostId(), event.getContent(), event.getPincode(),
+                event.getPostType(), event.getCategory(), event.getStatus(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,20 @@
+package com.localsolutions.search;
+
+import com.localsolutions.query.PostQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Full-text search over post content.
+ * Every term of the query must match, and each term matches as a prefix ("plumb" finds "plumber").
+ * With {@link com.localsolutions.query.PostSort#RELEVANCE} results are ranked by relevance,
+ * newest first among equals.
+ */
+public interface PostSearchEngine {
+
+    /**
+     * @param query a query with text; its other filters narrow the matches
+     * @return post IDs for the requested page, in the query's order
+     */
+    Page<Long> search(PostQuery query, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.localsolutions.search;
+
+import com.localsolutions.query.PostQuery;
+import com.localsolutions.query.PostQueryEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Search backed by the posts.search_vector generated column and its GIN index (V7).
+ * The text predicate is one more filter of the query engine's statement, so the planner can
+ * intersect the GIN index with the pincode/category/status btree indexes instead of filtering rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresPostSearchEngine implements PostSearchEngine {
+
+    private final PostQueryEngine queryEngine;
+
+    @Override
+    public Page<Long> search(PostQuery query, Pageable pageable) {
+        return queryEngine.findIds(query, pageable);
+    }
+}
@@ -0,0 +1,60 @@
+package com.localsolutions.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Revocations broadcast to every application context in the same JVM
+ * (security.token-revocation.backend=memory), so that several contexts can stand in for a
+ * cluster in tests. Revocations reach the other contexts before publish returns and are lost
+ * when the JVM exits.
+ */
+@Component
+@ConditionalOnProperty(name = "security.token-revocation.backend", havingValue = "memory")
+public class InProcessTokenRevocationBackend implements TokenRevocationBackend {
+
+    private static final Map<String, Long> REVOCATIONS = new ConcurrentHashMap<>();
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private Listener listener;
+
+    @Override
+    public void publish(String tokenId, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        REVOCATIONS.values().removeIf(expiresAt -> expiresAt <= now);
+        REVOCATIONS.put(tokenId, expiresAtMillis);
+        LISTENERS.forEach(subscriber -> subscriber.onRevoked(tokenId, expiresAtMillis));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+        // Registered before the replay, so a revocation published in between is not missed
+        LISTENERS.add(listener);
+        long now = System.currentTimeMillis();
+        REVOCATIONS.forEach((tokenId, expiresAt) -> {
+            if (expiresAt > now) {
+                listener.onRevoked(tokenId, expiresAt);
+            }
+        });
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        Long expiresAt = REVOCATIONS.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (listener != null) {
+            LISTENERS.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.localsolutions.security;
+
+import com.localsolutions.model.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * The claims of a token whose signature and expiry have been verified, read once by
+ * {@link JwtTokenUtil#parseToken}. Tokens minted before user ID and role were added to them
+ * carry neither; {@link #hasIdentity()} tells them apart.
+ */
+@Getter
+public class JwtClaims {
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
+    private final String tokenId;
+    private final String username;
+    private final Long userId;
+    private final UserRole role;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+
+    public JwtClaims(String tokenId, String username, Long userId, UserRole role, long issuedAtMillis, long expiresAtMillis) {
+        this.tokenId = tokenId;
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    static JwtClaims from(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        if (claims.getSubject() == null || issuedAt == null || expiration == null) {
+            throw new MalformedJwtException("Token is missing its subject, issue time or expiration");
+        }
+        Object userId = claims.get(USER_ID_CLAIM);
+        Object role = claims.get(ROLE_CLAIM);
+        try {
+            return new JwtClaims(
+                    claims.getId(),
+                    claims.getSubject(),
+                    userId instanceof Number number ? number.longValue() : null,
+                    role instanceof String name ? UserRole.valueOf(name) : null,
+                    issuedAt.getTime(),
+                    expiration.getTime());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Unknown role in token: " + role);
+        }
+    }
+
+    public boolean hasIdentity() {
+        return userId != null && role != null;
+    }
+
+    /**
+     * The principal described by the token; only valid when {@link #hasIdentity()}.
+     */
+    public AuthenticatedUser toPrincipal() {
+        return new AuthenticatedUser(userId, username, role);
+    }
+}
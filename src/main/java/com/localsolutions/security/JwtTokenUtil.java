@@ -1,13 +1,17 @@
 package com.localsolutions.security;
 
+import com.localsolutions.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,16 +21,25 @@ import java.util.UUID;
 public class JwtTokenUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtil.class);
 
-    private final String secret;
+    // Decoded once, the way jjwt decodes a String secret on every sign and parse
+    private final Key signingKey;
     private final Long expiration;
 
     public JwtTokenUtil(String secret, Long expiration) {
-        this.secret = secret;
+        this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
         this.expiration = expiration;
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        // The user's ID and role let a request be authenticated from the token alone
+        AuthenticatedUser identity = userDetails instanceof User user ? AuthenticatedUser.from(user)
+                : userDetails instanceof AuthenticatedUser principal ? principal
+                : null;
+        if (identity != null) {
+            claims.put(JwtClaims.USER_ID_CLAIM, identity.getId());
+            claims.put(JwtClaims.ROLE_CLAIM, identity.getRole().name());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -47,7 +60,7 @@ public class JwtTokenUtil {
                     .setIssuedAt(now)
                     .setExpiration(expiryDate)
                     .setId(tokenId)
-                    .signWith(SignatureAlgorithm.HS256, secret)
+                    .signWith(SignatureAlgorithm.HS256, signingKey)
                     .compact();
         } catch (Exception e) {
             logger.error("Error creating token: {}", e.getMessage());
@@ -55,6 +68,16 @@ public class JwtTokenUtil {
         }
     }
 
+    /**
+     * Verifies the token's signature and expiry and reads its claims, parsing the token once.
+     *
+     * @throws io.jsonwebtoken.ExpiredJwtException if the token has expired
+     * @throws io.jsonwebtoken.JwtException if the token is malformed or its signature does not match
+     */
+    public JwtClaims parseToken(String token) {
+        return JwtClaims.from(extractAllClaims(token));
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -70,25 +93,15 @@ public class JwtTokenUtil {
 
     private Claims extractAllClaims(String token) {
         return Jwts.parser()
-                .setSigningKey(secret)
+                .setSigningKey(signingKey)
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        try {
-            final Date expiration = extractExpiration(token);
-            return expiration.before(new Date());
-        } catch (Exception e) {
-            logger.error("Error checking token expiration: {}", e.getMessage());
-            return true;
-        }
-    }
-
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            // Parsing fails on an expired token
+            return parseToken(token).getUsername().equals(userDetails.getUsername());
         } catch (Exception e) {
             logger.error("Error validating token: {}", e.getMessage());
             return false;
@@ -0,0 +1,205 @@
+package com.localsolutions.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Revocations shared through the revoked_tokens table (security.token-revocation.backend=postgres,
+ * the default), so they survive restarts and reach every instance behind a load balancer.
+ *
+ * Revocations made here are queued and inserted in batches every flush-interval-ms. The rows of
+ * unexpired tokens are loaded once the application is ready, after Flyway has created the table;
+ * from then on every pull-interval-ms each instance reads the rows revoked since its last pull,
+ * going back pull-overlap-ms to pick up rows whose transactions committed late; rows it already
+ * holds are ignored. A revocation reaches every instance within roughly flush-interval-ms plus
+ * pull-interval-ms. Rows are deleted once their tokens have expired.
+ */
+@Component
+@ConditionalOnProperty(name = "security.token-revocation.backend", havingValue = "postgres", matchIfMissing = true)
+public class PostgresTokenRevocationBackend implements TokenRevocationBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresTokenRevocationBackend.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO revoked_tokens (token_id, expires_at_ms) VALUES (?, ?) ON CONFLICT (token_id) DO NOTHING";
+
+    private static final String PULL_SQL =
+            "SELECT token_id, expires_at_ms, revoked_at_ms FROM revoked_tokens " +
+            "WHERE revoked_at_ms > ? AND expires_at_ms > ? ORDER BY revoked_at_ms";
+
+    private static final String REVOKED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM revoked_tokens WHERE token_id = ? AND expires_at_ms > ?)";
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM revoked_tokens WHERE expires_at_ms <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentLinkedQueue<Revocation> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Counter written;
+    private final Counter pulled;
+    private final Counter dropped;
+    private Listener listener;
+    private volatile boolean started;
+    // Latest revoked_at_ms seen, from the database clock
+    private long watermark = Long.MIN_VALUE;
+    private long lastExpiredCleanup;
+
+    @Value("${security.token-revocation.postgres.flush-interval-ms:100}")
+    private long flushIntervalMs;
+
+    @Value("${security.token-revocation.postgres.pull-interval-ms:1000}")
+    private long pullIntervalMs;
+
+    @Value("${security.token-revocation.postgres.pull-overlap-ms:5000}")
+    private long pullOverlapMs;
+
+    @Value("${security.token-revocation.postgres.batch-size:500}")
+    private int batchSize;
+
+    @Value("${security.token-revocation.postgres.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${security.token-revocation.postgres.cleanup-interval-ms:600000}")
+    private long cleanupIntervalMs;
+
+    public PostgresTokenRevocationBackend(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("security.token.revocations.pending", pendingCount, AtomicInteger::get)
+                .description("Revocations waiting to be written to the revoked_tokens table")
+                .register(meterRegistry);
+        this.written = Counter.builder("security.token.revocations.written")
+                .description("Revocations written to the revoked_tokens table")
+                .register(meterRegistry);
+        this.pulled = Counter.builder("security.token.revocations.pulled")
+                .description("Revocation rows read from the revoked_tokens table")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("security.token.revocations.unwritten")
+                .description("Revocations dropped because the write queue was full; they stay on this instance only")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(String tokenId, long expiresAtMillis) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            logger.warn("Revocation write queue full at {} entries, token revoked on this instance only", maxPending);
+            return;
+        }
+        pending.add(new Revocation(tokenId, expiresAtMillis));
+    }
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Loads what is already revoked, then lets the scheduled pulls run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pull();
+        started = true;
+        logger.info("Token revocations shared through PostgreSQL: writing every {} ms, pulling every {} ms",
+                flushIntervalMs, pullIntervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Write whatever arrived after the last scheduled flush
+        flush();
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        // A revocation made here may still be waiting for its flush
+        for (Revocation revocation : pending) {
+            if (revocation.tokenId().equals(tokenId)) {
+                return true;
+            }
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(REVOKED_SQL, Boolean.class, tokenId, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-revocation.postgres.flush-interval-ms:100}")
+    public void flush() {
+        List<Revocation> batch = new ArrayList<>();
+        while (true) {
+            batch.clear();
+            Revocation revocation;
+            while (batch.size() < batchSize && (revocation = pending.poll()) != null) {
+                batch.add(revocation);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, r) -> {
+                    ps.setString(1, r.tokenId());
+                    ps.setLong(2, r.expiresAtMillis());
+                });
+                pendingCount.addAndGet(-batch.size());
+                written.increment(batch.size());
+            } catch (Exception e) {
+                // Requeued for the next flush; inserting a revocation twice is harmless
+                pending.addAll(batch);
+                logger.error("Error writing {} token revocations, will retry", batch.size(), e);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-revocation.postgres.pull-interval-ms:1000}")
+    public void pullAndCleanUp() {
+        if (!started) {
+            return;
+        }
+        pull();
+        long now = System.currentTimeMillis();
+        if (now - lastExpiredCleanup >= cleanupIntervalMs) {
+            lastExpiredCleanup = now;
+            try {
+                int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL, now);
+                logger.debug("Deleted {} expired token revocations", deleted);
+            } catch (Exception e) {
+                logger.error("Error deleting expired token revocations", e);
+            }
+        }
+    }
+
+    private synchronized void pull() {
+        if (listener == null) {
+            return;
+        }
+        try {
+            long since = watermark == Long.MIN_VALUE ? Long.MIN_VALUE : watermark - pullOverlapMs;
+            jdbcTemplate.query(PULL_SQL, rs -> {
+                listener.onRevoked(rs.getString(1), rs.getLong(2));
+                watermark = Math.max(watermark, rs.getLong(3));
+                pulled.increment();
+            }, since, System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Error reading token revocations", e);
+        }
+    }
+
+    private record Revocation(String tokenId, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.localsolutions.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.localsolutions.event.UserChangedEvent;
+import com.localsolutions.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Principals of JWT-authenticated requests by username (security.principal-cache.*), so that a
+ * request with a known token does not query the users table.
+ *
+ * An entry is dropped after commit when its user is updated or deleted, which covers role and
+ * password changes. Invalidation is local to this instance; expire-after-write bounds how long
+ * another instance's changes can go unseen.
+ *
+ * A token that carries the user's ID and role is treated as an entry written when it was issued:
+ * its principal is used as is while it is younger than expire-after-write and its user has not
+ * changed here since, and the cache is consulted otherwise.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter fromToken;
+    private Cache<String, AuthenticatedUser> cache;
+    // When each user last changed here. Only changes younger than a trusted token matter, so
+    // entries expire with the cache's own entries; the map holds the users changed in that window
+    private Cache<String, Long> changedAt;
+
+    @Value("${security.principal-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${security.principal-cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    public PrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.fromToken = requests(meterRegistry, "token");
+        Gauge.builder("security.principal.cache.size", this, PrincipalCache::size)
+                .description("Principals held by the principal cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+        changedAt = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * The principal of a verified token: taken from its claims when they are recent enough to be
+     * trusted, from the cache or the database otherwise.
+     *
+     * @throws UsernameNotFoundException if the principal has to be loaded and there is no such user
+     */
+    public AuthenticatedUser resolve(JwtClaims claims) {
+        if (enabled && claims.hasIdentity() && isCurrent(claims)) {
+            fromToken.increment();
+            return claims.toPrincipal();
+        }
+        return get(claims.getUsername());
+    }
+
+    /**
+     * The principal of the given user, loaded on a miss.
+     *
+     * @throws UsernameNotFoundException if there is no such user; misses are not cached
+     */
+    public AuthenticatedUser get(String username) {
+        if (!enabled) {
+            misses.increment();
+            return load(username);
+        }
+        AuthenticatedUser principal = cache.getIfPresent(username);
+        if (principal != null) {
+            hits.increment();
+            return principal;
+        }
+        misses.increment();
+        // An invalidation waits for a load of the same username in progress and then removes it,
+        // so a load that read the user before a commit never outlives that commit
+        return cache.get(username, this::load);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (cache != null) {
+            changedAt.put(event.getUsername(), System.currentTimeMillis());
+            cache.invalidate(event.getUsername());
+        }
+    }
+
+    private boolean isCurrent(JwtClaims claims) {
+        long issuedAt = claims.getIssuedAtMillis();
+        if (System.currentTimeMillis() - issuedAt >= TimeUnit.SECONDS.toMillis(expireAfterWriteSeconds)) {
+            return false;
+        }
+        // Issue times are whole seconds, so a token from the second of a change is not trusted
+        Long changed = changedAt.getIfPresent(claims.getUsername());
+        return changed == null || changed < issuedAt;
+    }
+
+    private AuthenticatedUser load(String username) {
+        return userRepository.findByUsername(username)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    }
+
+    private double size() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("security.principal.cache.requests")
+                .description("Principal lookups of authenticated requests by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
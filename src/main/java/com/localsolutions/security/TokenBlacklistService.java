@@ -1,81 +1,272 @@
 package com.localsolutions.security;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Service to manage blacklisted JWT tokens.
- * This is used to invalidate tokens when users log out.
+ * Revoked tokens by token ID (jti) until they expire (security.token-revocation.*).
+ * Logging out revokes the token; the JWT filter rejects revoked tokens.
+ *
+ * Checks are lock-free: a Bloom filter answers "not revoked" for almost every token without a map
+ * lookup. Revocations are filed in a timer wheel of expiry slots, one turn of which covers a token's
+ * lifetime, so each tick only visits the slots that have elapsed and drops what expired in them.
+ * The Bloom filter cannot forget, so it is rebuilt from the live revocations once as many have
+ * expired as are still held.
+ *
+ * At most max-entries revocations are held. Past that the ones closest to expiry are dropped from
+ * the map, but never from the Bloom filter: until the last of them has expired, a token that passes
+ * the filter but is not held is looked up in the backend, and the filter is not rebuilt. A full
+ * store therefore costs backend lookups, never a revoked token being accepted. A failed lookup
+ * rejects the token.
+ *
+ * Revocations are shared with the other instances through a {@link TokenRevocationBackend}; those
+ * made elsewhere are added here as the backend delivers them.
  */
 @Service
 public class TokenBlacklistService {
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
 
-    private final Map<String, Long> blacklistedTokens = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService cleanupService = Executors.newSingleThreadScheduledExecutor();
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
 
-    public TokenBlacklistService() {
-        // Schedule cleanup of expired tokens every hour
-        cleanupService.scheduleAtFixedRate(this::cleanupExpiredTokens, 1, 1, TimeUnit.HOURS);
-        logger.info("TokenBlacklistService initialized with in-memory storage");
+    private final TokenRevocationBackend backend;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // Guards the wheel and filter rebuilds; checks never take it
+    private final Object lock = new Object();
+    private final Counter notRevoked;
+    private final Counter falsePositives;
+    private final Counter revokedHits;
+    private final Counter backendRevoked;
+    private final Counter backendNotRevoked;
+    private final Counter backendErrors;
+    private final Counter expired;
+    private final Counter evicted;
+    private volatile TokenBloomFilter bloomFilter;
+    private ArrayDeque<String>[] wheel;
+    // Start of the next slot to expire
+    private long wheelTime;
+    private long slotMillis;
+    private int expiredSinceRebuild;
+    // Latest expiry of the revocations dropped from the map; until then misses are checked with the backend
+    private volatile long evictedUntil;
+
+    @Value("${security.token-revocation.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${security.token-revocation.slot-seconds:60}")
+    private long slotSeconds;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMillis;
+
+    public TokenBlacklistService(TokenRevocationBackend backend, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.notRevoked = checks(meterRegistry, "not-revoked");
+        this.falsePositives = checks(meterRegistry, "false-positive");
+        this.revokedHits = checks(meterRegistry, "revoked");
+        this.backendRevoked = checks(meterRegistry, "backend-revoked");
+        this.backendNotRevoked = checks(meterRegistry, "backend-not-revoked");
+        this.backendErrors = checks(meterRegistry, "backend-error");
+        this.expired = Counter.builder("security.token.revocations.expired")
+                .description("Revocations dropped when their token expired")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("security.token.revocations.evicted")
+                .description("Revocations dropped from memory before their token expired because the store was full; checked with the backend instead")
+                .register(meterRegistry);
+        Gauge.builder("security.token.revocations", revokedTokens, Map::size)
+                .description("Revoked tokens held until they expire")
+                .register(meterRegistry);
+        Gauge.builder("security.token.revocations.capacity", this, service -> service.maxEntries)
+                .description("Maximum number of revoked tokens held")
+                .register(meterRegistry);
+        Gauge.builder("security.token.revocations.bloom.bytes", this, service -> service.bloomFilterBytes())
+                .description("Size of the revoked token Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        slotMillis = slotSeconds * 1000;
+        // One turn covers the longest token lifetime, so a slot only ever holds tokens of one turn
+        int slots = (int) (tokenLifetimeMillis / slotMillis) + 2;
+        wheel = new ArrayDeque[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        wheelTime = System.currentTimeMillis() / slotMillis * slotMillis;
+        bloomFilter = new TokenBloomFilter(maxEntries, BLOOM_FALSE_POSITIVE_RATE);
+        logger.info("TokenBlacklistService initialized: up to {} revocations in {} slots of {} s",
+                maxEntries, slots, slotSeconds);
+        backend.subscribe(this::store);
     }
 
     /**
-     * Add a token to the blacklist with its expiration time
+     * Revoke a token until it expires
      *
-     * @param token The JWT token to blacklist
-     * @param expiryTimeMillis The expiration time of the token in milliseconds since epoch
+     * @param tokenId The token's jti claim
+     * @param expiresAtMillis The expiration time of the token in milliseconds since epoch
      */
-    public void blacklistToken(String token, long expiryTimeMillis) {
-        blacklistedTokens.put(token, expiryTimeMillis);
-        logger.debug("Token blacklisted in memory");
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (store(tokenId, expiresAtMillis)) {
+            backend.publish(tokenId, expiresAtMillis);
+            logger.debug("Token revoked until {}", expiresAtMillis);
+        }
     }
 
     /**
-     * Check if a token is blacklisted
+     * Check if a token has been revoked
      *
-     * @param token The JWT token to check
-     * @return true if the token is blacklisted, false otherwise
+     * @param tokenId The token's jti claim
+     * @return true if the token is revoked, false otherwise
      */
-    public boolean isBlacklisted(String token) {
-        return blacklistedTokens.containsKey(token);
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            notRevoked.increment();
+            return false;
+        }
+        if (revokedTokens.containsKey(tokenId)) {
+            revokedHits.increment();
+            return true;
+        }
+        if (evictedUntil > System.currentTimeMillis()) {
+            return isRevokedInBackend(tokenId);
+        }
+        falsePositives.increment();
+        return false;
     }
 
     /**
-     * Remove expired tokens from the blacklist
+     * Drop the revocations of tokens that have expired
      */
-    private void cleanupExpiredTokens() {
+    @Scheduled(fixedDelayString = "${security.token-revocation.slot-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void expire() {
         long now = System.currentTimeMillis();
-        Set<String> tokensToRemove = blacklistedTokens.entrySet().stream()
-                .filter(entry -> entry.getValue() < now)
-                .map(Map.Entry::getKey)
-                .collect(java.util.stream.Collectors.toSet());
-
-        int count = tokensToRemove.size();
-        if (count > 0) {
-            tokensToRemove.forEach(blacklistedTokens::remove);
-            logger.debug("Cleaned up {} expired tokens from memory", count);
+        synchronized (lock) {
+            int removed = 0;
+            // A full turn visits every slot, however long the scheduler was held up
+            for (int turned = 0; wheelTime + slotMillis <= now && turned < wheel.length; turned++) {
+                removed += expireSlot(wheel[slot(wheelTime)], now);
+                wheelTime += slotMillis;
+            }
+            if (wheelTime + slotMillis <= now) {
+                wheelTime = now / slotMillis * slotMillis;
+            }
+            if (removed > 0) {
+                expired.increment(removed);
+                expiredSinceRebuild += removed;
+                logger.debug("Dropped {} expired token revocations", removed);
+            }
+            // Dropped revocations that are still live are only in the filter
+            if (expiredSinceRebuild > 0 && expiredSinceRebuild >= revokedTokens.size() && evictedUntil <= now) {
+                rebuildBloomFilter();
+            }
         }
     }
 
-    public void shutdown() {
-        cleanupService.shutdown();
-        try {
-            if (!cleanupService.awaitTermination(5, TimeUnit.SECONDS)) {
-                cleanupService.shutdownNow();
+    // Adds a revocation made here or delivered by the backend; false if it is held already or expired
+    private boolean store(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        synchronized (lock) {
+            if (revokedTokens.containsKey(tokenId)) {
+                return false;
+            }
+            if (revokedTokens.size() >= maxEntries) {
+                evictClosestToExpiry();
+            }
+            // In the map before the filter, so a check that passes the filter finds it
+            revokedTokens.put(tokenId, expiresAtMillis);
+            wheel[slot(expiresAtMillis)].add(tokenId);
+            bloomFilter.add(tokenId);
+        }
+        return true;
+    }
+
+    private int expireSlot(ArrayDeque<String> slot, long now) {
+        int removed = 0;
+        Iterator<String> tokenIds = slot.iterator();
+        while (tokenIds.hasNext()) {
+            String tokenId = tokenIds.next();
+            Long expiresAt = revokedTokens.get(tokenId);
+            if (expiresAt == null) {
+                // Evicted earlier
+                tokenIds.remove();
+            } else if (expiresAt <= now) {
+                revokedTokens.remove(tokenId);
+                tokenIds.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void evictClosestToExpiry() {
+        int current = slot(wheelTime);
+        for (int i = 0; i < wheel.length; i++) {
+            ArrayDeque<String> slot = wheel[(current + i) % wheel.length];
+            String tokenId;
+            while ((tokenId = slot.poll()) != null) {
+                Long expiresAt = revokedTokens.remove(tokenId);
+                if (expiresAt != null) {
+                    evicted.increment();
+                    if (evictedUntil <= System.currentTimeMillis()) {
+                        logger.warn("Token revocation store full at {} entries; revocations dropped from memory are "
+                                + "checked with the backend until they expire", maxEntries);
+                    }
+                    evictedUntil = Math.max(evictedUntil, expiresAt);
+                    return;
+                }
             }
-        } catch (InterruptedException e) {
-            cleanupService.shutdownNow();
-            Thread.currentThread().interrupt();
         }
-        logger.info("TokenBlacklistService cleanup service shut down");
+    }
+
+    private boolean isRevokedInBackend(String tokenId) {
+        try {
+            boolean revoked = backend.isRevoked(tokenId);
+            (revoked ? backendRevoked : backendNotRevoked).increment();
+            return revoked;
+        } catch (Exception e) {
+            backendErrors.increment();
+            logger.error("Error checking a token revocation with the backend, rejecting the token", e);
+            return true;
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        TokenBloomFilter rebuilt = new TokenBloomFilter(maxEntries, BLOOM_FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+        expiredSinceRebuild = 0;
+    }
+
+    private int slot(long timeMillis) {
+        return (int) Math.floorMod(timeMillis / slotMillis, (long) wheel.length);
+    }
+
+    private double bloomFilterBytes() {
+        TokenBloomFilter filter = bloomFilter;
+        return filter != null ? filter.sizeInBytes() : 0;
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("security.token.revocation.checks")
+                .description("Token revocation checks by outcome; false-positive is a Bloom filter hit with no revocation")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
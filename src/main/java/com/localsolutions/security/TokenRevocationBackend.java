@@ -0,0 +1,36 @@
+package com.localsolutions.security;
+
+/**
+ * Shares token revocations between the instances of the application
+ * (security.token-revocation.backend). Each instance keeps its own copy in
+ * {@link TokenBlacklistService}, so checking a token never leaves the JVM; the backend only
+ * carries revocations from the instance where the user logged out to every other one.
+ */
+public interface TokenRevocationBackend {
+
+    /**
+     * Receives revocations made on any instance, this one included, and any number of times.
+     */
+    @FunctionalInterface
+    interface Listener {
+        void onRevoked(String tokenId, long expiresAtMillis);
+    }
+
+    /**
+     * Records a revocation made on this instance for all of them. May return before other
+     * instances have seen it; implementations document how long that can take.
+     */
+    void publish(String tokenId, long expiresAtMillis);
+
+    /**
+     * Delivers the revocations of tokens that have not expired yet, then every new revocation, to
+     * the listener.
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Whether the token is revoked on any instance, as far as the backend knows. Asked only about
+     * revocations that {@link TokenBlacklistService} had to drop from memory, so it may be slow.
+     */
+    boolean isRevoked(String tokenId);
+}
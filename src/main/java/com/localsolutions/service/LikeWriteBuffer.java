@@ -0,0 +1,402 @@
+package com.localsolutions.service;
+
+import com.localsolutions.event.PostLikedEvent;
+import com.localsolutions.event.PostLikesChangedEvent;
+import com.localsolutions.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind buffer for post likes (post.likes.write-behind.enabled).
+ *
+ * Like and unlike events are coalesced in memory per (postId, userId), the latest event winning,
+ * and flushed every flush-interval-ms or once max-pending events are waiting. Each flush writes
+ * all inserts in one statement and all deletes in another, adjusting like_count in the same
+ * statement, so a viral post takes one counter update per flush instead of one per click.
+ *
+ * Buffered changes are overlaid on reads: a user sees their own like immediately, and like counts
+ * include changes that have not been written yet. Whatever is still buffered is written on shutdown.
+ */
+@Component
+public class LikeWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeWriteBuffer.class);
+
+    private static final int STRIPES = 16;
+
+    // Persisted count and the user's persisted like state; no row means the post does not exist
+    private static final String SNAPSHOT_SQL =
+            "SELECT p.like_count, EXISTS (SELECT 1 FROM post_likes pl WHERE pl.post_id = p.id AND pl.user_id = ?) " +
+            "FROM posts p WHERE p.id = ?";
+
+    // Posts or users deleted while their likes were buffered are skipped rather than failing the batch.
+    // Also returns each post's author and the users whose likes were inserted, for PostLikedEvent
+    private static final String FLUSH_LIKES_SQL =
+            "WITH inserted AS (INSERT INTO post_likes (post_id, user_id) " +
+            "SELECT l.post_id, l.user_id FROM unnest(?::bigint[], ?::bigint[]) AS l(post_id, user_id) " +
+            "WHERE EXISTS (SELECT 1 FROM posts p WHERE p.id = l.post_id) " +
+            "AND EXISTS (SELECT 1 FROM users u WHERE u.id = l.user_id) " +
+            "ON CONFLICT DO NOTHING RETURNING post_id, user_id) " +
+            "UPDATE posts p SET like_count = p.like_count + c.changed " +
+            "FROM (SELECT post_id, COUNT(*) AS changed, array_agg(user_id) AS user_ids FROM inserted GROUP BY post_id) c " +
+            "WHERE p.id = c.post_id " +
+            "RETURNING p.id, p.pincode, p.like_count, p.user_id AS author_id, c.user_ids";
+
+    private static final String FLUSH_UNLIKES_SQL =
+            "WITH deleted AS (DELETE FROM post_likes pl USING unnest(?::bigint[], ?::bigint[]) AS l(post_id, user_id) " +
+            "WHERE pl.post_id = l.post_id AND pl.user_id = l.user_id RETURNING pl.post_id) " +
+            "UPDATE posts p SET like_count = p.like_count - c.changed " +
+            "FROM (SELECT post_id, COUNT(*) AS changed FROM deleted GROUP BY post_id) c WHERE p.id = c.post_id " +
+            "RETURNING p.id, p.pincode, p.like_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor taskExecutor;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger depth = new AtomicInteger();
+    // Held while a flush runs; scheduled and early flushes skip when it is taken, the shutdown flush waits
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter coalescedEvents;
+
+    @Value("${post.likes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${post.likes.write-behind.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${post.likes.write-behind.max-pending:1000}")
+    private int maxPending;
+
+    public LikeWriteBuffer(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                           @Qualifier("taskExecutor") Executor taskExecutor, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.taskExecutor = taskExecutor;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        Gauge.builder("posts.likes.buffer.depth", depth, AtomicInteger::get)
+                .description("Like events waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("posts.likes.buffer.flush")
+                .description("Time taken to write a batch of buffered likes")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("posts.likes.buffer.flushed")
+                .description("Like and unlike changes written by buffer flushes")
+                .register(meterRegistry);
+        this.coalescedEvents = Counter.builder("posts.likes.buffer.coalesced")
+                .description("Like events absorbed by a later event for the same user and post")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            logger.info("Like write-behind enabled: flushing every {} ms or {} events", flushIntervalMs, maxPending);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        // Waits for a flush that is still running, then writes whatever arrived after it
+        flushLock.lock();
+        try {
+            writePending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a like and returns the like count the user should see.
+     *
+     * @throws ResourceNotFoundException if the post does not exist
+     */
+    public int like(Long postId, Long userId) {
+        return record(postId, userId, true);
+    }
+
+    /**
+     * Buffers an unlike and returns the like count the user should see.
+     *
+     * @throws ResourceNotFoundException if the post does not exist
+     */
+    public int unlike(Long postId, Long userId) {
+        return record(postId, userId, false);
+    }
+
+    /**
+     * The user's buffered like state for a post, or null if nothing is buffered for them.
+     */
+    public Boolean pendingLiked(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            PendingLike entry = stripe.pending.get(key);
+            if (entry == null) {
+                entry = stripe.inflight.get(key);
+            }
+            return entry != null ? entry.liked : null;
+        }
+    }
+
+    /**
+     * Net change to a post's like count that has not been written to posts.like_count yet.
+     */
+    public int pendingLikeDelta(Long postId) {
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            return stripe.pendingDelta.getOrDefault(postId, 0) + stripe.inflightDelta.getOrDefault(postId, 0);
+        }
+    }
+
+    private int record(Long postId, Long userId, boolean liked) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeFor(postId);
+        int persistedCount;
+        int delta;
+        while (true) {
+            long flushes;
+            synchronized (stripe) {
+                flushes = stripe.flushes;
+            }
+            // A read, not a write: validates the post and captures the persisted state the event is compared against
+            List<Object[]> rows = jdbcTemplate.query(SNAPSHOT_SQL,
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getBoolean(2)}, userId, postId);
+            if (rows.isEmpty()) {
+                throw new ResourceNotFoundException("Post not found with ID: " + postId);
+            }
+            persistedCount = (Integer) rows.get(0)[0];
+            boolean persistedLiked = (Boolean) rows.get(0)[1];
+
+            synchronized (stripe) {
+                // A flush of this stripe committed and cleared its in-flight changes since the snapshot was
+                // taken, so the snapshot may predate them and neither it nor the in-flight map is a baseline
+                if (stripe.flushes != flushes) {
+                    continue;
+                }
+                delta = apply(stripe, key, persistedLiked, liked);
+            }
+            break;
+        }
+
+        if (depth.get() >= maxPending && enabled && flushRequested.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // The scheduled flush picks them up
+                flushRequested.set(false);
+            }
+        }
+        return Math.max(0, persistedCount + delta);
+    }
+
+    // Adds the event to the stripe, which the caller has locked, and returns the post's unwritten like delta
+    private int apply(Stripe stripe, LikeKey key, boolean persistedLiked, boolean liked) {
+        Long postId = key.postId();
+        PendingLike entry = stripe.pending.get(key);
+        if (entry == null) {
+            // A batch being written for this key becomes the baseline once it commits
+            PendingLike inflight = stripe.inflight.get(key);
+            entry = new PendingLike(inflight != null ? inflight.liked : persistedLiked, liked);
+            stripe.pending.put(key, entry);
+            stripe.adjustPending(postId, entry.contribution());
+            depth.incrementAndGet();
+        } else {
+            stripe.adjustPending(postId, -entry.contribution());
+            entry.liked = liked;
+            stripe.adjustPending(postId, entry.contribution());
+            coalescedEvents.increment();
+        }
+        return stripe.pendingDelta.getOrDefault(postId, 0) + stripe.inflightDelta.getOrDefault(postId, 0);
+    }
+
+    /**
+     * Writes every buffered change, unless a flush is already running. Changes that cancel out (like then
+     * unlike) are dropped without a write.
+     */
+    @Scheduled(fixedDelayString = "${post.likes.write-behind.flush-interval-ms:250}")
+    public void flush() {
+        flushRequested.set(false);
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            writePending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Called with flushLock held
+    private void writePending() {
+        List<LikeKey> likes = new ArrayList<>();
+        List<LikeKey> unlikes = new ArrayList<>();
+        int drained = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                stripe.inflight = stripe.pending;
+                stripe.inflightDelta = stripe.pendingDelta;
+                stripe.pending = new HashMap<>();
+                stripe.pendingDelta = new HashMap<>();
+                drained += stripe.inflight.size();
+                stripe.inflight.forEach((key, entry) -> {
+                    if (entry.liked != entry.baseline) {
+                        (entry.liked ? likes : unlikes).add(key);
+                    }
+                });
+            }
+        }
+        if (drained == 0) {
+            return;
+        }
+        depth.addAndGet(-drained);
+
+        try {
+            List<PostLikesChangedEvent> changed = new ArrayList<>();
+            List<PostLikedEvent> liked = new ArrayList<>();
+            flushTimer.record(() -> {
+                changed.addAll(write(FLUSH_LIKES_SQL, likes, liked));
+                changed.addAll(write(FLUSH_UNLIKES_SQL, unlikes, null));
+            });
+            flushedRows.increment(likes.size() + unlikes.size());
+            logger.debug("Flushed {} buffered like events ({} likes, {} unlikes)", drained, likes.size(), unlikes.size());
+            clearInflight();
+            changed.forEach(eventPublisher::publishEvent);
+            liked.forEach(eventPublisher::publishEvent);
+        } catch (Exception e) {
+            logger.error("Error flushing {} buffered like events, keeping them for the next flush", drained, e);
+            requeueInflight();
+        }
+    }
+
+    // Returns the posts whose like count the statement changed, with their new counts, and adds
+    // the inserted likes to liked when it is given
+    private List<PostLikesChangedEvent> write(String sql, List<LikeKey> keys, List<PostLikedEvent> liked) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        Long[] postIds = new Long[keys.size()];
+        Long[] userIds = new Long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            postIds[i] = keys.get(i).postId();
+            userIds[i] = keys.get(i).userId();
+        }
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Long postId = rs.getLong("id");
+            if (liked != null) {
+                Long authorId = rs.getLong("author_id");
+                for (Long userId : (Long[]) rs.getArray("user_ids").getArray()) {
+                    liked.add(new PostLikedEvent(postId, authorId, userId));
+                }
+            }
+            return new PostLikesChangedEvent(postId, rs.getString("pincode"), rs.getInt("like_count"));
+        }, postIds, userIds);
+    }
+
+    private void clearInflight() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.inflight.isEmpty()) {
+                    stripe.flushes++;
+                }
+                stripe.inflight = Map.of();
+                stripe.inflightDelta = Map.of();
+            }
+        }
+    }
+
+    private void requeueInflight() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.inflight.forEach((key, failed) -> {
+                    PendingLike newer = stripe.pending.get(key);
+                    if (newer == null) {
+                        stripe.pending.put(key, failed);
+                        stripe.adjustPending(key.postId(), failed.contribution());
+                        depth.incrementAndGet();
+                    } else {
+                        // The newer event assumed the failed batch had committed; rebase it on the persisted state
+                        stripe.adjustPending(key.postId(), -newer.contribution());
+                        newer.baseline = failed.baseline;
+                        stripe.adjustPending(key.postId(), newer.contribution());
+                    }
+                });
+                stripe.inflight = Map.of();
+                stripe.inflightDelta = Map.of();
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long postId) {
+        // All events for a post share a stripe so its count overlay is read under one lock
+        return stripes[Math.floorMod(postId.hashCode(), STRIPES)];
+    }
+
+    private record LikeKey(Long postId, Long userId) {
+    }
+
+    private static final class PendingLike {
+        private boolean baseline;
+        private boolean liked;
+
+        private PendingLike(boolean baseline, boolean liked) {
+            this.baseline = baseline;
+            this.liked = liked;
+        }
+
+        private int contribution() {
+            return (liked ? 1 : 0) - (baseline ? 1 : 0);
+        }
+    }
+
+    private static final class Stripe {
+        private Map<LikeKey, PendingLike> pending = new HashMap<>();
+        private Map<Long, Integer> pendingDelta = new HashMap<>();
+        private Map<LikeKey, PendingLike> inflight = Map.of();
+        private Map<Long, Integer> inflightDelta = Map.of();
+        // Flushes that committed changes of this stripe
+        private long flushes;
+
+        private void adjustPending(Long postId, int change) {
+            if (change != 0) {
+                pendingDelta.merge(postId, change, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.localsolutions.service;
+
+import com.localsolutions.dto.PostDTO;
+import com.localsolutions.repository.PostRepository;
+import com.localsolutions.repository.UserRepository;
+import com.localsolutions.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills {@link PostDTO#isLiked()} for a whole page of posts at once.
+ * The current user is resolved once and a single post_likes lookup covers every post on the page,
+ * instead of loading the user and its liked set once per post.
+ * When likes are written behind, buffered changes are overlaid on the liked state and like counts.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikedStateResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikedStateResolver.class);
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final LikeWriteBuffer likeWriteBuffer;
+
+    public <T extends Iterable<PostDTO>> T resolve(T posts) {
+        try {
+            if (likeWriteBuffer.isEnabled()) {
+                for (PostDTO post : posts) {
+                    post.setLikeCount(Math.max(0, post.getLikeCount() + likeWriteBuffer.pendingLikeDelta(post.getId())));
+                }
+            }
+
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth == null || !auth.isAuthenticated() || auth.getName().equals("anonymousUser")) {
+                return posts;
+            }
+
+            List<Long> postIds = new ArrayList<>();
+            for (PostDTO post : posts) {
+                postIds.add(post.getId());
+            }
+            if (postIds.isEmpty()) {
+                return posts;
+            }
+
+            // JWT-authenticated requests carry the user's ID; look it up for any other principal
+            Long userId = auth.getPrincipal() instanceof AuthenticatedUser principal
+                    ? principal.getId()
+                    : userRepository.findIdByUsername(auth.getName()).orElse(null);
+            if (userId == null) {
+                return posts;
+            }
+
+            Set<Long> likedPostIds = new HashSet<>(postRepository.findLikedPostIds(userId, postIds));
+            for (PostDTO post : posts) {
+                Boolean pending = likeWriteBuffer.isEnabled() ? likeWriteBuffer.pendingLiked(post.getId(), userId) : null;
+                post.setLiked(pending != null ? pending : likedPostIds.contains(post.getId()));
+            }
+        } catch (Exception e) {
+            logger.error("Error resolving liked state for current user", e);
+        }
+        return posts;
+    }
+}
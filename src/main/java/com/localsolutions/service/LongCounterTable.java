@@ -0,0 +1,195 @@
+package com.localsolutions.service;
+
+/**
+ * Open-addressing map from positive long keys to long counters, held in primitive arrays so an
+ * entry costs no objects. Linear probing with backward-shift deletion, so there are no tombstones.
+ * Each entry also records when it was written and whether it is still being loaded.
+ *
+ * Not thread-safe; UnreadCounterStore guards each table with its stripe's lock.
+ */
+final class LongCounterTable {
+
+    // Entry states
+    static final byte READY = 0;
+    static final byte LOADING = 1;
+    // Changed while loading, so the loaded value is already out of date
+    static final byte STALE = 2;
+
+    private static final long EMPTY = 0;
+    // Ready entries compared per eviction, and the most slots walked to find them
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int EVICTION_PROBES = 64;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] writtenAt;
+    private byte[] states;
+    private int mask;
+    private int size;
+    // Where the next eviction starts looking, so successive evictions sweep the whole table
+    private int hand;
+
+    LongCounterTable(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(8, initialCapacity - 1) << 1));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot of the key, or -1 if it is not in the table.
+     */
+    int find(long key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    long count(int slot) {
+        return counts[slot];
+    }
+
+    long writtenAt(int slot) {
+        return writtenAt[slot];
+    }
+
+    byte state(int slot) {
+        return states[slot];
+    }
+
+    void setState(int slot, byte state) {
+        states[slot] = state;
+    }
+
+    void set(int slot, long count, long now) {
+        counts[slot] = count;
+        writtenAt[slot] = now;
+        states[slot] = READY;
+    }
+
+    // Counters never go below zero; a decrement for rows counted before the entry was seeded is absorbed
+    void add(int slot, long delta) {
+        counts[slot] = Math.max(0, counts[slot] + delta);
+    }
+
+    /**
+     * Adds the key with the given count and state, growing the table when it is half full.
+     *
+     * @return the key's slot
+     */
+    int put(long key, long count, byte state, long now) {
+        if (key <= EMPTY) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        writtenAt[slot] = now;
+        states[slot] = state;
+        return slot;
+    }
+
+    void remove(long key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            removeAt(slot);
+        }
+    }
+
+    /**
+     * Removes the oldest of a few ready entries found from the clock hand on, an approximation of
+     * the entry written longest ago that costs a bounded walk instead of a scan of the table. Made
+     * only when the table is at its bound and a new key has to go in. Removes nothing if no ready
+     * entry is within reach.
+     */
+    void removeOldest() {
+        int oldest = -1;
+        int sampled = 0;
+        int slot = hand & mask;
+        for (int probes = 0; probes < EVICTION_PROBES && sampled < EVICTION_SAMPLES; probes++) {
+            if (keys[slot] != EMPTY && states[slot] == READY) {
+                sampled++;
+                if (oldest < 0 || writtenAt[slot] < writtenAt[oldest]) {
+                    oldest = slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        hand = slot;
+        if (oldest >= 0) {
+            removeAt(oldest);
+        }
+    }
+
+    private void removeAt(int slot) {
+        // Shift later entries of the probe run back so that every key stays reachable from its home slot
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slotOf(keys[next]);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                writtenAt[hole] = writtenAt[next];
+                states[hole] = states[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldWrittenAt = writtenAt;
+        byte[] oldStates = states;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                writtenAt[slot] = oldWrittenAt[i];
+                states[slot] = oldStates[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        writtenAt = new long[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(long key) {
+        // murmur3 fmix64: sequential user ids would otherwise fill one probe run
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,446 @@
+package com.localsolutions.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.localsolutions.event.CommentCreatedEvent;
+import com.localsolutions.event.MessageSentEvent;
+import com.localsolutions.event.PostLikedEvent;
+import com.localsolutions.event.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes notifications off the request thread (notifications.dispatch.*).
+ *
+ * Likes, comments and messages are turned into notifications once their transaction commits and
+ * queued in a bounded queue, which a task on the taskExecutor drains in batches of up to batch-size
+ * notifications, sent as one JDBC batch. Actor names come from a cache of display names by user id, loaded
+ * for all the misses of a batch in one query, so a request that triggers a notification no longer
+ * reads or writes anything for it.
+ *
+ * Notifications of the same type and related id for a recipient are aggregated within a window of
+ * notifications.aggregation.window-minutes: the first one inserts a row and later ones are upserted into
+ * it, counting each actor once and keeping the latest few, so a popular post gets one "Alice and 24 others
+ * liked your post" row per window instead of one row per like. A window of 0 writes one row per notification.
+ *
+ * Notifications are best effort: when the queue is full new ones are dropped and counted rather
+ * than slowing the requests down, and a batch that fails to write is logged and dropped.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    public static final String POST_LIKE = "POST_LIKE";
+    public static final String POST_COMMENT = "POST_COMMENT";
+    public static final String POST_SOLUTION = "POST_SOLUTION";
+    public static final String FOLLOW = "FOLLOW";
+    public static final String MESSAGE = "MESSAGE";
+
+    // Content of each notification type, formatted with the actor's display name
+    private static final Map<String, String> CONTENT = Map.of(
+            POST_LIKE, "%s liked your post",
+            POST_COMMENT, "%s commented on your post",
+            POST_SOLUTION, "%s provided a solution to your post",
+            FOLLOW, "%s started following you",
+            MESSAGE, "New message from %s");
+
+    // Actor ids kept on an aggregated notification, newest first
+    private static final int LATEST_ACTORS = 3;
+
+    // Inserts a notification or folds it into the row collecting the same type and related_id for the
+    // recipient in its window, which becomes unread again and moves to the top. The id is the column default.
+    // An aggregated row's actors are counted by ADD_ACTORS_SQL, so it is inserted with an actor_count of 0
+    private static final String UPSERT_SQL =
+            "INSERT INTO notifications AS n (user_id, type, content, read, related_id, created_at, window_start, actor_count, actor_ids) " +
+            "VALUES (?, ?, ?, false, ?, ?, ?, ?, ?::bigint[]) " +
+            "ON CONFLICT (user_id, type, related_id, window_start) DO UPDATE SET " +
+            "actor_ids = (EXCLUDED.actor_ids || ARRAY(SELECT a FROM unnest(n.actor_ids) a WHERE a <> ALL (EXCLUDED.actor_ids)))" +
+            "[1:" + LATEST_ACTORS + "], " +
+            "read = false, " +
+            "created_at = GREATEST(n.created_at, EXCLUDED.created_at)";
+
+    private static final String ACTOR_COUNT = "(n.actor_count + c.added)";
+
+    private static final String ACTORS_SQL =
+            "CASE " + ACTOR_COUNT + " WHEN 1 THEN '' WHEN 2 THEN ' and 1 other' " +
+            "ELSE ' and ' || (" + ACTOR_COUNT + " - 1) || ' others' END";
+
+    // Records the actors of an aggregated row, counts those it did not have yet, and renders its content
+    // with the latest actor's name
+    private static final String ADD_ACTORS_SQL =
+            "WITH target AS (SELECT id FROM notifications " +
+            "WHERE user_id = ? AND type = ? AND related_id = ? AND window_start = ?), " +
+            "added AS (INSERT INTO notification_actors (notification_id, actor_id, window_start) " +
+            "SELECT t.id, a.actor_id, ? FROM target t, unnest(?::bigint[]) AS a(actor_id) " +
+            "ON CONFLICT DO NOTHING RETURNING 1) " +
+            "UPDATE notifications n SET " +
+            "actor_count = " + ACTOR_COUNT + ", " +
+            "content = format(?::text, ?::text || " + ACTORS_SQL + ") " +
+            "FROM target t, (SELECT COUNT(*) AS added FROM added) c " +
+            "WHERE n.id = t.id";
+
+    private static final String DELETE_CLOSED_ACTORS_SQL = "DELETE FROM notification_actors WHERE window_start < ?";
+
+    private static final String DISPLAY_NAMES_SQL = "SELECT id, full_name FROM users WHERE id = ANY (?::bigint[])";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final UnreadCounters unreadCounters;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Counter dropped;
+    private final Counter rejected;
+    private final Counter written;
+    private final Counter upsertedRows;
+    private final Counter failed;
+    private final Counter skipped;
+    private final Timer batchTimer;
+    private final Timer lag;
+    private BlockingQueue<PendingNotification> queue;
+    private Cache<Long, String> displayNames;
+
+    @Value("${notifications.dispatch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${notifications.dispatch.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.aggregation.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${notifications.display-names.max-size:10000}")
+    private long displayNamesMaxSize;
+
+    @Value("${notifications.display-names.expire-after-write-seconds:600}")
+    private long displayNamesExpireAfterWriteSeconds;
+
+    public NotificationDispatcher(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  @Qualifier("taskExecutor") Executor taskExecutor,
+                                  UnreadCounters unreadCounters, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.unreadCounters = unreadCounters;
+        Gauge.builder("notifications.dispatch.queue.depth", this, NotificationDispatcher::depth)
+                .description("Notifications waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("notifications.dispatch.queue.capacity", this, dispatcher -> dispatcher.queueCapacity)
+                .description("Notifications the queue holds before new ones are dropped")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notifications.dispatch.dropped")
+                .description("Notifications dropped because the queue was full")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notifications.dispatch.rejected")
+                .description("Drains the task executor refused; the queue is drained by the next one")
+                .register(meterRegistry);
+        this.written = Counter.builder("notifications.dispatch.written")
+                .description("Notifications written")
+                .register(meterRegistry);
+        this.upsertedRows = Counter.builder("notifications.dispatch.rows")
+                .description("Notification rows inserted or collapsed into; fewer than written when notifications are aggregated")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notifications.dispatch.failed")
+                .description("Notifications lost because their batch failed to write")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("notifications.dispatch.skipped")
+                .description("Notifications skipped because their actor or recipient no longer exists")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("notifications.dispatch.batch")
+                .description("Time taken to write a batch of notifications")
+                .register(meterRegistry);
+        this.lag = Timer.builder("notifications.dispatch.lag")
+                .description("Time from queueing a notification to writing it")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        displayNames = Caffeine.newBuilder()
+                .maximumSize(displayNamesMaxSize)
+                .expireAfterWrite(displayNamesExpireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Write what is still queued; a drain running on the executor takes its share concurrently
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queues a notification of the given type for the recipient. Nothing is queued when the actor is
+     * the recipient.
+     *
+     * @return false if the notification was not queued
+     */
+    public boolean enqueue(String type, Long recipientId, Long actorId, Long relatedId) {
+        if (!CONTENT.containsKey(type)) {
+            throw new IllegalArgumentException("Unknown notification type: " + type);
+        }
+        if (recipientId == null || actorId == null || recipientId.equals(actorId)) {
+            return false;
+        }
+        PendingNotification notification =
+                new PendingNotification(type, recipientId, actorId, relatedId, LocalDateTime.now(), System.nanoTime());
+        if (!queue.offer(notification)) {
+            dropped.increment();
+            logger.warn("Notification queue full ({}), dropping {} notification for user ID: {}",
+                    queueCapacity, type, recipientId);
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPostLiked(PostLikedEvent event) {
+        enqueue(POST_LIKE, event.getAuthorId(), event.getUserId(), event.getPostId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        enqueue(POST_COMMENT, event.getAuthorId(), event.getUserId(), event.getPostId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        enqueue(MESSAGE, event.getReceiverId(), event.getSenderId(), event.getSenderId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        displayNames.invalidate(event.getUserId());
+    }
+
+    // Picks up a queue left behind when the executor rejected its drain
+    @Scheduled(fixedDelayString = "${notifications.dispatch.retry-interval-ms:1000}")
+    public void drainLeftovers() {
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Deletes the recorded actors of windows that have closed, one window after they did so that
+     * notifications still queued for them are counted.
+     */
+    @Scheduled(fixedDelayString = "${notifications.aggregation.cleanup-interval-ms:3600000}")
+    public void deleteClosedActors() {
+        LocalDateTime current = windowStart(LocalDateTime.now());
+        if (current == null) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(DELETE_CLOSED_ACTORS_SQL, Timestamp.valueOf(current.minusMinutes(windowMinutes)));
+            logger.debug("Deleted {} actors of closed notification windows", deleted);
+        } catch (Exception e) {
+            logger.error("Error deleting actors of closed notification windows", e);
+        }
+    }
+
+    private int depth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            rejected.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            List<PendingNotification> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // A notification queued after the last drainTo but before the flag was cleared found a drain running
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void write(List<PendingNotification> batch) {
+        try {
+            Set<Long> userIds = new HashSet<>();
+            for (PendingNotification notification : batch) {
+                userIds.add(notification.actorId());
+                userIds.add(notification.recipientId());
+            }
+            // Users missing here have been deleted; their notifications are skipped rather than failing the batch
+            Map<Long, String> names = displayNames.getAll(userIds, this::loadDisplayNames);
+
+            // Notifications of the batch that share a row are folded together first, since one statement
+            // cannot upsert the same row twice
+            Map<Object, Aggregate> aggregates = new LinkedHashMap<>();
+            int notifications = 0;
+            for (PendingNotification notification : batch) {
+                String actorName = names.get(notification.actorId());
+                if (actorName == null || !names.containsKey(notification.recipientId())) {
+                    skipped.increment();
+                    continue;
+                }
+                LocalDateTime windowStart = windowStart(notification.createdAt());
+                Object key = windowStart != null && notification.relatedId() != null
+                        ? new AggregateKey(notification.recipientId(), notification.type(), notification.relatedId(), windowStart)
+                        : new Object();
+                aggregates.computeIfAbsent(key, k -> new Aggregate(notification, windowStart)).add(notification, actorName);
+                notifications++;
+            }
+            if (aggregates.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> rows = new ArrayList<>(aggregates.size());
+            List<Object[]> actorRows = new ArrayList<>();
+            for (Aggregate aggregate : aggregates.values()) {
+                String template = CONTENT.get(aggregate.type);
+                boolean aggregated = aggregate.windowStart != null;
+                Timestamp windowStart = aggregated ? Timestamp.valueOf(aggregate.windowStart) : null;
+                rows.add(new Object[]{aggregate.recipientId, aggregate.type,
+                        String.format(template, actors(aggregate.latestActorName, aggregate.actors.size())),
+                        aggregate.relatedId, Timestamp.valueOf(aggregate.createdAt), windowStart,
+                        aggregated ? 0 : aggregate.actors.size(), aggregate.latestActors()});
+                if (aggregated) {
+                    actorRows.add(new Object[]{aggregate.recipientId, aggregate.type, aggregate.relatedId, windowStart,
+                            windowStart, aggregate.actors.toArray(new Long[0]), template, aggregate.latestActorName});
+                }
+            }
+            // Together, so a row is never seen before its actors are counted
+            batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+                if (!actorRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(ADD_ACTORS_SQL, actorRows);
+                }
+            }));
+            written.increment(notifications);
+            upsertedRows.increment(rows.size());
+            long now = System.nanoTime();
+            for (Aggregate aggregate : aggregates.values()) {
+                aggregate.enqueuedAt.forEach(nanos -> lag.record(now - nanos, TimeUnit.NANOSECONDS));
+            }
+            logger.debug("Wrote {} notifications as {} rows", notifications, rows.size());
+            Set<Long> recipients = new HashSet<>();
+            aggregates.values().forEach(aggregate -> recipients.add(aggregate.recipientId));
+            unreadCounters.notificationsWritten(recipients);
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            logger.error("Error writing {} notifications", batch.size(), e);
+        }
+    }
+
+    private LocalDateTime windowStart(LocalDateTime createdAt) {
+        if (windowMinutes <= 0) {
+            return null;
+        }
+        long seconds = createdAt.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(seconds - Math.floorMod(seconds, windowMinutes * 60), 0, ZoneOffset.UTC);
+    }
+
+    // "Alice", "Alice and 1 other", "Alice and 24 others"; ACTORS_SQL renders the same in the upsert
+    private static String actors(String latestActorName, int actorCount) {
+        if (actorCount <= 1) {
+            return latestActorName;
+        }
+        return latestActorName + " and " + (actorCount - 1) + (actorCount == 2 ? " other" : " others");
+    }
+
+    private Map<Long, String> loadDisplayNames(Set<? extends Long> userIds) {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query(DISPLAY_NAMES_SQL, rs -> {
+            names.put(rs.getLong("id"), rs.getString("full_name"));
+        }, (Object) userIds.toArray(new Long[0]));
+        return names;
+    }
+
+    private record AggregateKey(Long recipientId, String type, Long relatedId, LocalDateTime windowStart) {
+    }
+
+    // Notifications of one batch collapsed into one row: their distinct actors, oldest first
+    private static final class Aggregate {
+        private final String type;
+        private final Long recipientId;
+        private final Long relatedId;
+        private final LocalDateTime windowStart;
+        private final LinkedHashSet<Long> actors = new LinkedHashSet<>();
+        private final List<Long> enqueuedAt = new ArrayList<>();
+        private String latestActorName;
+        private LocalDateTime createdAt;
+
+        private Aggregate(PendingNotification first, LocalDateTime windowStart) {
+            this.type = first.type();
+            this.recipientId = first.recipientId();
+            this.relatedId = first.relatedId();
+            this.windowStart = windowStart;
+        }
+
+        private Aggregate add(PendingNotification notification, String actorName) {
+            // The queue is in arrival order, so the notification added last is the latest
+            actors.remove(notification.actorId());
+            actors.add(notification.actorId());
+            latestActorName = actorName;
+            createdAt = notification.createdAt();
+            enqueuedAt.add(notification.enqueuedNanos());
+            return this;
+        }
+
+        private Long[] latestActors() {
+            List<Long> latest = new ArrayList<>(actors);
+            Collections.reverse(latest);
+            return latest.subList(0, Math.min(LATEST_ACTORS, latest.size())).toArray(new Long[0]);
+        }
+    }
+
+    private record PendingNotification(String type, Long recipientId, Long actorId, Long relatedId,
+                                       LocalDateTime createdAt, long enqueuedNanos) {
+    }
+}
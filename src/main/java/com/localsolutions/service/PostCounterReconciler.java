@@ -0,0 +1,61 @@
+package com.localsolutions.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Repairs drift in the denormalized posts.like_count and posts.comment_count columns.
+ * Counters are recomputed from post_likes and comments in id-range batches so that each
+ * statement only locks a bounded slice of the posts table.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciler.class);
+
+    private static final String RECONCILE_LIKES =
+            "UPDATE posts p SET like_count = (SELECT COUNT(*) FROM post_likes pl WHERE pl.post_id = p.id) " +
+            "WHERE p.id BETWEEN ? AND ? AND p.like_count <> (SELECT COUNT(*) FROM post_likes pl WHERE pl.post_id = p.id)";
+
+    private static final String RECONCILE_COMMENTS =
+            "UPDATE posts p SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) " +
+            "WHERE p.id BETWEEN ? AND ? AND p.comment_count <> (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${post.counters.reconcile-batch-size:10000}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${post.counters.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${post.counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM posts", Long.class);
+            if (maxId == null) {
+                return;
+            }
+
+            int repairedLikes = 0;
+            int repairedComments = 0;
+            for (long from = 1; from <= maxId; from += batchSize) {
+                long to = from + batchSize - 1;
+                repairedLikes += jdbcTemplate.update(RECONCILE_LIKES, from, to);
+                repairedComments += jdbcTemplate.update(RECONCILE_COMMENTS, from, to);
+            }
+
+            if (repairedLikes > 0 || repairedComments > 0) {
+                logger.warn("Repaired post counters: {} like counts, {} comment counts", repairedLikes, repairedComments);
+            } else {
+                logger.debug("Post counters are consistent");
+            }
+        } catch (Exception e) {
+            logger.error("Error reconciling post counters", e);
+        }
+    }
+}
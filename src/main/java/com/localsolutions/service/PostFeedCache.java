@@ -0,0 +1,370 @@
+package com.localsolutions.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.localsolutions.dto.PostDTO;
+import com.localsolutions.event.PostChangedEvent;
+import com.localsolutions.event.PostLikesChangedEvent;
+import com.localsolutions.model.PostCategory;
+import com.localsolutions.model.PostStatus;
+import com.localsolutions.model.PostType;
+import com.localsolutions.repository.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the first top-k post IDs of each pincode feed (post.feed-cache.*).
+ *
+ * Entries are grouped by pincode, so a write only touches the feeds of the pincodes it affects:
+ * a new post is prepended to the matching recent feeds, a like re-sorts the popular feeds that
+ * hold the post, and updates, status changes and deletes drop the pincode's feeds. A page served
+ * from the cache costs one lookup of its rows by ID, so counts and content are always current;
+ * only membership and order are cached.
+ *
+ * Invalidation is local to this instance; expire-after-write bounds how stale another instance's
+ * writes can look.
+ */
+@Component
+public class PostFeedCache {
+
+    public enum Order {
+        RECENT,
+        POPULAR
+    }
+
+    /**
+     * A cached feed: the posts of a pincode, optionally filtered, in the given order.
+     */
+    public record Key(String pincode, PostType type, PostStatus status, PostCategory category, Order order) {
+
+        public static Key recent(String pincode, PostType type, PostStatus status, PostCategory category) {
+            return new Key(pincode, type, status, category, Order.RECENT);
+        }
+
+        public static Key popular(String pincode) {
+            return new Key(pincode, null, null, null, Order.POPULAR);
+        }
+
+        private boolean matches(PostChangedEvent event) {
+            return (type == null || type == event.getPostType())
+                    && (status == null || status == event.getStatus())
+                    && (category == null || category == event.getCategory());
+        }
+    }
+
+    private static final Sort RECENT_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    // A miss records the pincode's generation before loading and only stores the result if no
+    // write to that pincode happened in between, so a load never overwrites a newer invalidation
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final PostRepository postRepository;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Timer missTimer;
+    private Cache<String, Map<Key, Feed>> cache;
+
+    @Value("${post.feed-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${post.feed-cache.top-k:100}")
+    private int topK;
+
+    @Value("${post.feed-cache.max-ids:200000}")
+    private long maxIds;
+
+    @Value("${post.feed-cache.expire-after-write-seconds:60}")
+    private long expireAfterWriteSeconds;
+
+    public PostFeedCache(PostRepository postRepository, MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.bypasses = requests(meterRegistry, "bypass");
+        this.missTimer = Timer.builder("posts.feed.cache.miss")
+                .description("Time taken to load a pincode feed on a cache miss")
+                .register(meterRegistry);
+        Gauge.builder("posts.feed.cache.ids", this, PostFeedCache::cachedIds)
+                .description("Post IDs held by the pincode feed cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((String pincode, Map<Key, Feed> feeds) -> 1 + feeds.values().stream().mapToInt(feed -> feed.ids.length).sum())
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * A page of the feed. Unsorted requests within the first top-k posts are answered from the
+     * cache, loading the top-k with the loader on a miss; anything else goes straight to the loader.
+     * Recent feeds are ordered newest first when the request does not ask for an order.
+     */
+    public Page<PostDTO> get(Key key, Pageable pageable, Function<Pageable, Page<PostDTO>> loader) {
+        if (pageable.getSort().isSorted()) {
+            bypasses.increment();
+            return loader.apply(pageable);
+        }
+        if (!enabled || pageable.getOffset() + pageable.getPageSize() > topK) {
+            bypasses.increment();
+            return loader.apply(withFeedOrder(key, pageable));
+        }
+
+        Map<Key, Feed> feeds = cache.getIfPresent(key.pincode());
+        Feed feed = feeds != null ? feeds.get(key) : null;
+        if (feed != null) {
+            hits.increment();
+            return hydrate(feed, pageable);
+        }
+
+        misses.increment();
+        return missTimer.record(() -> {
+            long generation = generations.get(stripe(key.pincode()));
+            Page<PostDTO> top = loader.apply(withFeedOrder(key, PageRequest.of(0, topK)));
+            Feed loaded = Feed.of(top.getContent(), top.getTotalElements());
+            cache.asMap().compute(key.pincode(), (pincode, current) -> {
+                if (generations.get(stripe(pincode)) != generation) {
+                    return current;
+                }
+                Map<Key, Feed> updated = current != null ? new HashMap<>(current) : new HashMap<>();
+                updated.put(key, loaded);
+                return updated;
+            });
+
+            List<PostDTO> content = top.getContent();
+            int from = (int) Math.min(pageable.getOffset(), content.size());
+            int to = Math.min(from + pageable.getPageSize(), content.size());
+            return new PageImpl<>(new ArrayList<>(content.subList(from, to)), pageable, top.getTotalElements());
+        });
+    }
+
+    // Runs after commit so a rolled-back write never changes a cached feed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (cache == null) {
+            return;
+        }
+        if (event.getType() == PostChangedEvent.Type.CREATED) {
+            generations.incrementAndGet(stripe(event.getPincode()));
+            patch(event.getPincode(), (key, feed) -> {
+                if (!key.matches(event)) {
+                    return feed;
+                }
+                // The newest post heads every recent feed it belongs to; its place by likes is left to a reload
+                return key.order() == Order.RECENT ? feed.prepend(event.getPostId(), event.getCreatedAt(), topK) : null;
+            });
+        } else {
+            invalidate(event.getPincode());
+            if (!Objects.equals(event.getPreviousPincode(), event.getPincode())) {
+                invalidate(event.getPreviousPincode());
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLikesChanged(PostLikesChangedEvent event) {
+        if (cache == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(event.getPincode()));
+        patch(event.getPincode(), (key, feed) ->
+                key.order() == Order.POPULAR ? feed.withLikeCount(event.getPostId(), event.getLikeCount()) : feed);
+    }
+
+    private Page<PostDTO> hydrate(Feed feed, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), feed.ids.length);
+        int to = Math.min(from + pageable.getPageSize(), feed.ids.length);
+        if (from == to) {
+            return new PageImpl<>(Collections.emptyList(), pageable, feed.total);
+        }
+        List<Long> ids = Arrays.stream(feed.ids, from, to).boxed().collect(Collectors.toList());
+        Map<Long, PostDTO> rows = postRepository.findFeedByIds(ids).stream()
+                .collect(Collectors.toMap(PostDTO::getId, dto -> dto));
+        List<PostDTO> ordered = ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, pageable, feed.total);
+    }
+
+    // Applies the change to each of the pincode's feeds; a null result drops that feed
+    private void patch(String pincode, BiFunction<Key, Feed, Feed> change) {
+        cache.asMap().computeIfPresent(pincode, (p, feeds) -> {
+            Map<Key, Feed> updated = new HashMap<>();
+            feeds.forEach((key, feed) -> {
+                Feed patched = change.apply(key, feed);
+                if (patched != null) {
+                    updated.put(key, patched);
+                }
+            });
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void invalidate(String pincode) {
+        if (pincode == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(pincode));
+        cache.invalidate(pincode);
+    }
+
+    private Pageable withFeedOrder(Key key, Pageable pageable) {
+        // Popular queries carry their own ORDER BY
+        return key.order() == Order.RECENT && pageable.getSort().isUnsorted()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), RECENT_SORT)
+                : pageable;
+    }
+
+    private double cachedIds() {
+        return cache != null ? cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L) : 0;
+    }
+
+    private static int stripe(String pincode) {
+        return Math.floorMod(Objects.hashCode(pincode), GENERATION_STRIPES);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("posts.feed.cache.requests")
+                .description("Pincode feed requests by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The first top-k posts of a feed, in feed order, with what is needed to re-order popular feeds.
+     * Immutable; changes produce a new Feed.
+     */
+    private static final class Feed {
+        private final long[] ids;
+        private final long[] createdAt;
+        private final int[] likeCounts;
+        private final long total;
+
+        private Feed(long[] ids, long[] createdAt, int[] likeCounts, long total) {
+            this.ids = ids;
+            this.createdAt = createdAt;
+            this.likeCounts = likeCounts;
+            this.total = total;
+        }
+
+        private static Feed of(List<PostDTO> posts, long total) {
+            long[] ids = new long[posts.size()];
+            long[] createdAt = new long[posts.size()];
+            int[] likeCounts = new int[posts.size()];
+            for (int i = 0; i < posts.size(); i++) {
+                PostDTO post = posts.get(i);
+                ids[i] = post.getId();
+                createdAt[i] = epochMicros(post.getCreatedAt());
+                likeCounts[i] = post.getLikeCount();
+            }
+            return new Feed(ids, createdAt, likeCounts, total);
+        }
+
+        // Microseconds, the precision of created_at, so ties are broken as the database breaks them
+        private static long epochMicros(LocalDateTime time) {
+            return time != null ? time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000 : 0;
+        }
+
+        private boolean truncated() {
+            return ids.length < total;
+        }
+
+        private int indexOf(long postId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == postId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Feed prepend(long postId, LocalDateTime postCreatedAt, int limit) {
+            if (indexOf(postId) >= 0) {
+                // Already loaded by a read that saw the committed post
+                return this;
+            }
+            int length = Math.min(ids.length + 1, limit);
+            long[] newIds = new long[length];
+            long[] newCreatedAt = new long[length];
+            int[] newLikeCounts = new int[length];
+            newIds[0] = postId;
+            newCreatedAt[0] = epochMicros(postCreatedAt);
+            System.arraycopy(ids, 0, newIds, 1, length - 1);
+            System.arraycopy(createdAt, 0, newCreatedAt, 1, length - 1);
+            System.arraycopy(likeCounts, 0, newLikeCounts, 1, length - 1);
+            return new Feed(newIds, newCreatedAt, newLikeCounts, total + 1);
+        }
+
+        // Popular order is likes, then newest, then highest id, as in the query; returns null when the post may now belong in a
+        // truncated feed it is not part of
+        private Feed withLikeCount(long postId, int likeCount) {
+            int index = indexOf(postId);
+            if (index < 0) {
+                boolean couldEnter = truncated() && (ids.length == 0 || likeCount >= likeCounts[ids.length - 1]);
+                return couldEnter ? null : this;
+            }
+            if (likeCounts[index] == likeCount) {
+                return this;
+            }
+            Integer[] order = new Integer[ids.length];
+            int[] counts = likeCounts.clone();
+            counts[index] = likeCount;
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int result = Integer.compare(counts[b], counts[a]);
+                if (result == 0) {
+                    result = Long.compare(createdAt[b], createdAt[a]);
+                }
+                return result != 0 ? result : Long.compare(ids[b], ids[a]);
+            });
+            // A post that dropped to the end of a truncated feed may have been overtaken by one outside it
+            if (truncated() && order[order.length - 1] == index && likeCount < likeCounts[index]) {
+                return null;
+            }
+            long[] newIds = new long[ids.length];
+            long[] newCreatedAt = new long[ids.length];
+            int[] newLikeCounts = new int[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                newIds[i] = ids[order[i]];
+                newCreatedAt[i] = createdAt[order[i]];
+                newLikeCounts[i] = counts[order[i]];
+            }
+            return new Feed(newIds, newCreatedAt, newLikeCounts, total);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.localsolutions.service;
+
+import com.localsolutions.dto.PostDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in row-level diagnostics for feed queries (post.diagnostics.sampler.*).
+ *
+ * When enabled, at most one result page per interval is logged at DEBUG, and only up to max-rows
+ * of it. The sampler only looks at rows a query has already returned; it never runs queries of its
+ * own, so leaving it on costs nothing beyond the log lines.
+ */
+@Component
+public class PostQuerySampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostQuerySampler.class);
+
+    private final AtomicLong nextSampleAt = new AtomicLong();
+
+    @Value("${post.diagnostics.sampler.enabled:false}")
+    private boolean enabled;
+
+    @Value("${post.diagnostics.sampler.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${post.diagnostics.sampler.max-rows:5}")
+    private int maxRows;
+
+    public void sample(String query, Iterable<PostDTO> posts) {
+        if (!enabled || !logger.isDebugEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long due = nextSampleAt.get();
+        if (now < due || !nextSampleAt.compareAndSet(due, now + intervalMs)) {
+            return;
+        }
+
+        int logged = 0;
+        for (PostDTO post : posts) {
+            if (logged++ == maxRows) {
+                break;
+            }
+            String content = post.getContent();
+            logger.debug("{} sample - Post ID: {}, Category: {}, Status: {}, Content: {}", query,
+                    post.getId(), post.getCategory(), post.getStatus(),
+                    content != null && content.length() > 50 ? content.substring(0, 50) + "..." : content);
+        }
+        if (logged == 0) {
+            logger.debug("{} sample - no rows", query);
+        }
+    }
+}
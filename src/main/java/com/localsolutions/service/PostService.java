@@ -1,49 +1,80 @@
 package com.localsolutions.service;
 
+import com.localsolutions.dto.LikerCursor;
+import com.localsolutions.dto.LikerDTO;
+import com.localsolutions.dto.PostCursor;
+import com.localsolutions.dto.PostDTO;
 import com.localsolutions.model.Post;
 import com.localsolutions.model.PostCategory;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.PostType;
+import com.localsolutions.query.PostQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import java.util.List;
 
 public interface PostService {
     Post createPost(Post post);
+    // The post with its author loaded
     Post getPostById(Long id);
+    // Author id only, for @PreAuthorize ownership checks; throws ResourceNotFoundException for a missing post
+    Long getPostAuthorId(Long postId);
     Post updatePost(Long id, Post post);
     void deletePost(Long id);
-    Page<Post> getPostsByTypeAndStatus(PostType type, PostStatus status, Pageable pageable);
-    Page<Post> getPostsByCategoryAndPincode(PostCategory category, String pincode, Pageable pageable);
-    Page<Post> getPostsByUserId(Long userId, Pageable pageable);
-    List<Post> getPostsByStatusAndPincode(PostStatus status, String pincode);
-    Page<Post> getRelevantPosts(PostType type, PostStatus status, Long userId, Pageable pageable);
-    Page<Post> getLocalCategoryPosts(PostType type, PostStatus status, PostCategory category, String pincode, Pageable pageable);
+    // Any combination of filters in one query; the methods below are fixed combinations of it
+    Page<PostDTO> findPosts(PostQuery query, Pageable pageable);
+    Slice<PostDTO> findPostsAfter(PostQuery query, PostCursor cursor, int size);
+    Page<PostDTO> getPostsByTypeAndStatus(PostType type, PostStatus status, Pageable pageable);
+    Page<PostDTO> getPostsByCategoryAndPincode(PostCategory category, String pincode, Pageable pageable);
+    Page<PostDTO> getPostsByUserId(Long userId, Pageable pageable);
+    List<PostDTO> getPostsByStatusAndPincode(PostStatus status, String pincode);
+    Page<PostDTO> getRelevantPosts(PostType type, PostStatus status, Long userId, Pageable pageable);
+    Page<PostDTO> getLocalCategoryPosts(PostType type, PostStatus status, PostCategory category, String pincode, Pageable pageable);
     Post updatePostStatus(Long id, PostStatus status);
-    void likePost(Long postId, Long userId);
-    void unlikePost(Long postId, Long userId);
+    int likePost(Long postId, Long userId);
+    int unlikePost(Long postId, Long userId);
     boolean isPostLikedByUser(Long postId, Long userId);
-    Page<Post> getAllPosts(Pageable pageable);
-    List<Post> getAllPostsWithoutPagination();
-    Page<Post> searchPosts(String searchTerm, Pageable pageable);
-    Page<Post> getPopularPosts(Pageable pageable);
-    Page<Post> getRecentPosts(Pageable pageable);
-    Page<Post> getPostsByCategory(PostCategory category, Pageable pageable);
-    Page<Post> getPostsByCategories(List<PostCategory> categories, Pageable pageable);
-    Page<Post> getPostsByStatus(PostStatus status, Pageable pageable);
-    Page<Post> getPostsByCategoryAndStatus(PostCategory category, PostStatus status, Pageable pageable);
-    Page<Post> getPostsByCategoriesAndStatus(List<PostCategory> categories, PostStatus status, Pageable pageable);
+    // Likers newest first, keyset paginated; the preview is the first page without the post existence check
+    Slice<LikerDTO> getLikersAfter(Long postId, LikerCursor cursor, int size);
+    List<LikerDTO> getLikersPreview(Long postId, int limit);
+    Page<PostDTO> getAllPosts(Pageable pageable);
+    List<PostDTO> getAllPostsWithoutPagination();
+    Page<PostDTO> searchPosts(String searchTerm, Pageable pageable);
+    Page<PostDTO> searchPosts(String searchTerm, List<PostCategory> categories, PostStatus status, Pageable pageable);
+    Page<PostDTO> getPopularPosts(Pageable pageable);
+    Page<PostDTO> getRecentPosts(Pageable pageable);
+    Page<PostDTO> getPostsByCategory(PostCategory category, Pageable pageable);
+    Page<PostDTO> getPostsByCategories(List<PostCategory> categories, Pageable pageable);
+    Page<PostDTO> getPostsByStatus(PostStatus status, Pageable pageable);
+    Page<PostDTO> getPostsByCategoryAndStatus(PostCategory category, PostStatus status, Pageable pageable);
+    // Status is optional; null matches every status
+    Page<PostDTO> getPostsByCategoriesAndStatus(List<PostCategory> categories, PostStatus status, Pageable pageable);
 
     // Location-based search methods
-    Page<Post> getPostsByPincode(String pincode, Pageable pageable);
-    Page<Post> getPostsByPincodeAndCategory(String pincode, PostCategory category, Pageable pageable);
-    Page<Post> getPostsByPincodeAndType(String pincode, PostType type, Pageable pageable);
-    Page<Post> getPostsByPincodeTypeAndStatus(String pincode, PostType type, PostStatus status, Pageable pageable);
-    Page<Post> getPostsByPincodeTypeStatusAndCategory(String pincode, PostType type, PostStatus status, PostCategory category, Pageable pageable);
-    Page<Post> getPostsByNearbyPincode(String pincode, Pageable pageable);
-    Page<Post> getPostsByNearbyPincodeAndCategory(String pincode, PostCategory category, Pageable pageable);
-    Page<Post> getPopularPostsByPincode(String pincode, Pageable pageable);
-    Page<Post> searchPostsByContentAndPincode(String query, String pincode, Pageable pageable);
+    Page<PostDTO> getPostsByPincode(String pincode, Pageable pageable);
+    Page<PostDTO> getPostsByPincodeAndCategory(String pincode, PostCategory category, Pageable pageable);
+    Page<PostDTO> getPostsByPincodeAndType(String pincode, PostType type, Pageable pageable);
+    Page<PostDTO> getPostsByPincodeTypeAndStatus(String pincode, PostType type, PostStatus status, Pageable pageable);
+    Page<PostDTO> getPostsByPincodeTypeStatusAndCategory(String pincode, PostType type, PostStatus status, PostCategory category, Pageable pageable);
+    Page<PostDTO> getPostsByNearbyPincode(String pincode, Pageable pageable);
+    Page<PostDTO> getPostsByNearbyPincodeAndCategory(String pincode, PostCategory category, Pageable pageable);
+    // Posts within radiusKm of the pincode's centroid, nearest pincode first, each carrying its distance
+    Page<PostDTO> getPostsWithinRadius(String pincode, double radiusKm, PostCategory category, Pageable pageable);
+    Page<PostDTO> getPopularPostsByPincode(String pincode, Pageable pageable);
+    Page<PostDTO> searchPostsByContentAndPincode(String query, String pincode, Pageable pageable);
+
+    // Keyset (cursor) pagination, newest first, without a total count
+    Slice<PostDTO> getPostsAfter(List<PostCategory> categories, PostStatus status, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByTypeAndStatusAfter(PostType type, PostStatus status, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByUserIdAfter(Long userId, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByPincodeAfter(String pincode, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByPincodeAndCategoryAfter(String pincode, PostCategory category, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByPincodeAndTypeAfter(String pincode, PostType type, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByPincodeTypeAndStatusAfter(String pincode, PostType type, PostStatus status, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByPincodeTypeStatusAndCategoryAfter(String pincode, PostType type, PostStatus status, PostCategory category, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByNearbyPincodeAfter(String pincode, PostCursor cursor, int size);
+    Slice<PostDTO> getPostsByNearbyPincodeAndCategoryAfter(String pincode, PostCategory category, PostCursor cursor, int size);
 
     // Admin dashboard methods
     long countPosts();
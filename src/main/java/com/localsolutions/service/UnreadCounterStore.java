@@ -0,0 +1,185 @@
+package com.localsolutions.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Unread counts of one kind by user id, in striped LongCounterTables. A user's count is loaded from
+ * the database on the first read and then kept up to date by add and reset, so a read is a lookup
+ * under a stripe lock.
+ *
+ * A load marks the entry as loading first. A change that arrives while it loads may or may not be in
+ * the loaded count, so the entry is dropped instead of being filled, and the next read loads it again.
+ * A change committed just before a load can still be applied after it; entries are reloaded once they
+ * are older than resyncMillis, which bounds how long such a count stays off.
+ */
+class UnreadCounterStore {
+
+    private static final int STRIPES = 16;
+
+    private final LongCounterTable[] stripes = new LongCounterTable[STRIPES];
+    private final LongUnaryOperator loader;
+    private final int maxEntriesPerStripe;
+    private final long resyncMillis;
+    private final Counter hits;
+    private final Counter loads;
+
+    UnreadCounterStore(String name, LongUnaryOperator loader, int maxEntries, long resyncMillis,
+                       MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / STRIPES);
+        this.resyncMillis = resyncMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongCounterTable(64);
+        }
+        this.hits = Counter.builder("unread.counters.requests")
+                .tag("store", name).tag("result", "hit")
+                .description("Unread count reads answered by the counter store or loaded from the database")
+                .register(meterRegistry);
+        this.loads = Counter.builder("unread.counters.requests")
+                .tag("store", name).tag("result", "load")
+                .description("Unread count reads answered by the counter store or loaded from the database")
+                .register(meterRegistry);
+        Gauge.builder("unread.counters.size", this, UnreadCounterStore::size)
+                .tag("store", name)
+                .description("Users whose unread count is held by the counter store")
+                .register(meterRegistry);
+    }
+
+    long get(long userId) {
+        LongCounterTable table = stripeFor(userId);
+        boolean owner;
+        long now = System.currentTimeMillis();
+        synchronized (table) {
+            int slot = table.find(userId);
+            if (slot >= 0 && table.state(slot) == LongCounterTable.READY && now - table.writtenAt(slot) < resyncMillis) {
+                hits.increment();
+                return table.count(slot);
+            }
+            // Another read is loading this user; load without filling the entry rather than wait for it
+            owner = slot < 0 || table.state(slot) == LongCounterTable.READY;
+            if (slot >= 0 && owner) {
+                table.setState(slot, LongCounterTable.LOADING);
+            } else if (slot < 0) {
+                if (table.size() >= maxEntriesPerStripe) {
+                    table.removeOldest();
+                }
+                table.put(userId, 0, LongCounterTable.LOADING, now);
+            }
+        }
+        loads.increment();
+        if (!owner) {
+            return loader.applyAsLong(userId);
+        }
+        long count;
+        try {
+            count = loader.applyAsLong(userId);
+        } catch (RuntimeException e) {
+            remove(userId);
+            throw e;
+        }
+        fill(table, userId, count, System.currentTimeMillis());
+        return count;
+    }
+
+    /**
+     * Reloads the users of the given ones that are held, all in one bulkLoader call. Users missing
+     * from the loader's result have a count of zero.
+     */
+    void reload(Collection<Long> userIds, Function<Long[], Map<Long, Long>> bulkLoader) {
+        List<Long> held = new ArrayList<>();
+        for (Long userId : userIds) {
+            LongCounterTable table = stripeFor(userId);
+            synchronized (table) {
+                int slot = table.find(userId);
+                if (slot >= 0 && table.state(slot) == LongCounterTable.READY) {
+                    table.setState(slot, LongCounterTable.LOADING);
+                    held.add(userId);
+                }
+            }
+        }
+        if (held.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> counts;
+        try {
+            counts = bulkLoader.apply(held.toArray(new Long[0]));
+        } catch (RuntimeException e) {
+            held.forEach(this::remove);
+            throw e;
+        }
+        long now = System.currentTimeMillis();
+        for (Long userId : held) {
+            fill(stripeFor(userId), userId, counts.getOrDefault(userId, 0L), now);
+        }
+    }
+
+    void add(long userId, long delta) {
+        change(userId, delta, false);
+    }
+
+    void reset(long userId) {
+        change(userId, 0, true);
+    }
+
+    void remove(long userId) {
+        LongCounterTable table = stripeFor(userId);
+        synchronized (table) {
+            table.remove(userId);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (LongCounterTable table : stripes) {
+            synchronized (table) {
+                size += table.size();
+            }
+        }
+        return size;
+    }
+
+    // Users that are not held are left alone: their count is loaded from the database when first read
+    private void change(long userId, long delta, boolean reset) {
+        LongCounterTable table = stripeFor(userId);
+        synchronized (table) {
+            int slot = table.find(userId);
+            if (slot < 0) {
+                return;
+            }
+            if (table.state(slot) != LongCounterTable.READY) {
+                table.setState(slot, LongCounterTable.STALE);
+            } else if (reset) {
+                table.add(slot, -table.count(slot));
+            } else {
+                table.add(slot, delta);
+            }
+        }
+    }
+
+    private void fill(LongCounterTable table, long userId, long count, long now) {
+        synchronized (table) {
+            int slot = table.find(userId);
+            if (slot < 0) {
+                return;
+            }
+            if (table.state(slot) == LongCounterTable.LOADING) {
+                table.set(slot, count, now);
+            } else if (table.state(slot) == LongCounterTable.STALE) {
+                table.remove(userId);
+            }
+        }
+    }
+
+    private LongCounterTable stripeFor(long userId) {
+        return stripes[(int) Math.floorMod(userId, (long) STRIPES)];
+    }
+}
@@ -0,0 +1,140 @@
+package com.localsolutions.service;
+
+import com.localsolutions.event.MarkedReadEvent;
+import com.localsolutions.event.MessageSentEvent;
+import com.localsolutions.event.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unread notification and message counts per user (unread-counters.*), so that the unread count
+ * endpoints the frontend polls answer from memory.
+ *
+ * A user's counts are loaded on their first read, through the partial unread indexes from V10, and
+ * then follow the changes committed here: a sent message adds one, marking messages or notifications
+ * as read subtracts the rows that changed, and marking all notifications as read zeroes the count.
+ * Aggregated notifications can fold into a row that is already unread or make a read one unread again,
+ * so instead of being added up the counts of their recipients are reloaded after each written batch.
+ *
+ * Counts are local to this instance. Changes made on another instance, or directly in the database,
+ * are seen once an entry is older than resync-seconds and is loaded again.
+ */
+@Component
+public class UnreadCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounters.class);
+
+    private static final String NOTIFICATIONS_SQL =
+            "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND read = false";
+
+    private static final String NOTIFICATIONS_BY_USER_SQL =
+            "SELECT user_id, COUNT(*) FROM notifications WHERE user_id = ANY (?::bigint[]) AND read = false GROUP BY user_id";
+
+    private static final String MESSAGES_SQL =
+            "SELECT COUNT(*) FROM messages WHERE receiver_id = ? AND read = false";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private UnreadCounterStore notifications;
+    private UnreadCounterStore messages;
+
+    @Value("${unread-counters.enabled:true}")
+    private boolean enabled;
+
+    @Value("${unread-counters.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${unread-counters.resync-seconds:300}")
+    private long resyncSeconds;
+
+    public UnreadCounters(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        long resyncMillis = TimeUnit.SECONDS.toMillis(resyncSeconds);
+        notifications = new UnreadCounterStore("notifications", this::countNotifications, maxEntries, resyncMillis, meterRegistry);
+        messages = new UnreadCounterStore("messages", this::countMessages, maxEntries, resyncMillis, meterRegistry);
+    }
+
+    public long unreadNotifications(Long userId) {
+        return enabled ? notifications.get(userId) : countNotifications(userId);
+    }
+
+    public long unreadMessages(Long userId) {
+        return enabled ? messages.get(userId) : countMessages(userId);
+    }
+
+    /**
+     * Reloads the unread notification counts of the given users after notifications were written for them.
+     */
+    public void notificationsWritten(Collection<Long> userIds) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            notifications.reload(userIds, this::countNotifications);
+        } catch (Exception e) {
+            // The entries were dropped, so the next reads load them
+            logger.error("Error reloading unread notification counts of {} users", userIds.size(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        if (enabled) {
+            messages.add(event.getReceiverId(), 1);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarkedRead(MarkedReadEvent event) {
+        if (!enabled) {
+            return;
+        }
+        UnreadCounterStore store = event.getKind() == MarkedReadEvent.Kind.NOTIFICATIONS ? notifications : messages;
+        if (event.isAll()) {
+            store.reset(event.getUserId());
+        } else if (event.getCount() > 0) {
+            store.add(event.getUserId(), -event.getCount());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (enabled && event.getType() == UserChangedEvent.Type.DELETED) {
+            notifications.remove(event.getUserId());
+            messages.remove(event.getUserId());
+        }
+    }
+
+    private long countNotifications(long userId) {
+        return jdbcTemplate.queryForObject(NOTIFICATIONS_SQL, Long.class, userId);
+    }
+
+    private Map<Long, Long> countNotifications(Long[] userIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(NOTIFICATIONS_BY_USER_SQL, rs -> {
+            counts.put(rs.getLong(1), rs.getLong(2));
+        }, (Object) userIds);
+        return counts;
+    }
+
+    private long countMessages(long userId) {
+        return jdbcTemplate.queryForObject(MESSAGES_SQL, Long.class, userId);
+    }
+}
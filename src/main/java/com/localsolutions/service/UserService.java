@@ -15,6 +15,7 @@ public interface UserService extends UserDetailsService {
     User updateUser(User user);
     void deleteUser(Long id);
     Optional<User> getUserByUsername(String username);
+    Optional<Long> getUserIdByUsername(String username);
     List<User> getUsersByRole(UserRole role);
     List<User> getUsersByPincode(String pincode);
     List<User> getBusinessOwnersByCategoryAndPincode(String category, String pincode);
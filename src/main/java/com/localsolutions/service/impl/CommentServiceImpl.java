@@ -1,11 +1,14 @@
 package com.localsolutions.service.impl;
 
+import com.localsolutions.event.CommentCreatedEvent;
 import com.localsolutions.model.Comment;
 import com.localsolutions.repository.CommentRepository;
+import com.localsolutions.repository.PostRepository;
 import com.localsolutions.service.CommentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,10 +26,28 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public Comment saveComment(Comment comment) {
         logger.info("Saving comment for post ID: {}", comment.getPost().getId());
-        return commentRepository.save(comment);
+        boolean isNew = comment.getId() == null;
+        Comment savedComment = commentRepository.save(comment);
+        if (isNew) {
+            Long postId = savedComment.getPost().getId();
+            postRepository.adjustCommentCount(postId, 1);
+            // The post is usually loaded with its author; the id of a lazy author does not initialize it
+            Long authorId = savedComment.getPost().getUser() != null
+                    ? savedComment.getPost().getUser().getId()
+                    : postRepository.findAuthorIdByPostId(postId).orElse(null);
+            eventPublisher.publishEvent(new CommentCreatedEvent(savedComment.getId(), postId, authorId,
+                    savedComment.getUser().getId()));
+        }
+        return savedComment;
     }
 
     @Override
@@ -51,7 +72,10 @@ public class CommentServiceImpl implements CommentService {
     @Override
     public void deleteComment(Long id) {
         logger.info("Deleting comment with ID: {}", id);
-        commentRepository.deleteById(id);
+        commentRepository.findById(id).ifPresent(comment -> {
+            commentRepository.delete(comment);
+            postRepository.adjustCommentCount(comment.getPost().getId(), -1);
+        });
     }
 
     @Override
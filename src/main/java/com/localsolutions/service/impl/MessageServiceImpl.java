@@ -1,21 +1,24 @@
 package com.localsolutions.service.impl;
 
 import com.localsolutions.dto.MessageDTO;
+import com.localsolutions.event.MarkedReadEvent;
+import com.localsolutions.event.MessageSentEvent;
 import com.localsolutions.model.Message;
 import com.localsolutions.model.User;
 import com.localsolutions.repository.MessageRepository;
 import com.localsolutions.repository.UserRepository;
 import com.localsolutions.service.MessageService;
+import com.localsolutions.service.UnreadCounters;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,13 +29,20 @@ public class MessageServiceImpl implements MessageService {
 
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final UnreadCounters unreadCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Message saveMessage(Message message) {
         logger.info("Saving message from user ID: {} to user ID: {}", 
                 message.getSender().getId(), message.getReceiver().getId());
         
+        boolean isNew = message.getId() == null;
         Message savedMessage = messageRepository.save(message);
+        if (isNew) {
+            eventPublisher.publishEvent(new MessageSentEvent(savedMessage.getId(),
+                    savedMessage.getSender().getId(), savedMessage.getReceiver().getId()));
+        }
         
         // WebSocket functionality disabled
         
@@ -73,7 +83,7 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public long countUnreadMessages(Long userId) {
         logger.info("Counting unread messages for user ID: {}", userId);
-        return messageRepository.countByReceiverIdAndReadFalse(userId);
+        return unreadCounters.unreadMessages(userId);
     }
 
     @Override
@@ -82,6 +92,7 @@ public class MessageServiceImpl implements MessageService {
         
         List<Message> latestMessages = messageRepository.findLatestMessagesForUser(userId);
         List<Map<String, Object>> conversations = new ArrayList<>();
+        long unreadCount = unreadCounters.unreadMessages(userId);
         
         for (Message message : latestMessages) {
             Map<String, Object> conversation = new HashMap<>();
@@ -94,7 +105,7 @@ public class MessageServiceImpl implements MessageService {
             conversation.put("partnerId", partner.getId());
             conversation.put("partnerName", partner.getFullName());
             conversation.put("lastMessage", MessageDTO.fromMessage(message));
-            conversation.put("unreadCount", messageRepository.countByReceiverIdAndReadFalse(userId));
+            conversation.put("unreadCount", unreadCount);
             
             conversations.add(conversation);
         }
@@ -106,21 +117,18 @@ public class MessageServiceImpl implements MessageService {
     public void markAsRead(Long messageId) {
         logger.info("Marking message as read: {}", messageId);
         Message message = getMessageById(messageId);
+        if (message.isRead()) {
+            return;
+        }
         message.setRead(true);
         messageRepository.save(message);
+        eventPublisher.publishEvent(MarkedReadEvent.messages(message.getReceiver().getId(), 1));
     }
 
     @Override
     public void markConversationAsRead(Long userId, Long partnerId) {
         logger.info("Marking conversation as read between users: {} and {}", userId, partnerId);
-        List<Message> unreadMessages = messageRepository.findByReceiverIdAndReadFalse(userId)
-                .stream()
-                .filter(message -> message.getSender().getId().equals(partnerId))
-                .collect(Collectors.toList());
-        
-        for (Message message : unreadMessages) {
-            message.setRead(true);
-            messageRepository.save(message);
-        }
+        int marked = messageRepository.markConversationAsRead(userId, partnerId);
+        eventPublisher.publishEvent(MarkedReadEvent.messages(userId, marked));
     }
 }
@@ -1,15 +1,15 @@
 package com.localsolutions.service.impl;
 
+import com.localsolutions.event.MarkedReadEvent;
 import com.localsolutions.model.Notification;
-import com.localsolutions.model.Post;
-import com.localsolutions.model.User;
 import com.localsolutions.repository.NotificationRepository;
-import com.localsolutions.repository.PostRepository;
-import com.localsolutions.repository.UserRepository;
+import com.localsolutions.service.NotificationDispatcher;
 import com.localsolutions.service.NotificationService;
+import com.localsolutions.service.UnreadCounters;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -25,8 +25,9 @@ public class NotificationServiceImpl implements NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
-    private final PostRepository postRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final UnreadCounters unreadCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Notification saveNotification(Notification notification) {
@@ -62,143 +63,53 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public long countUnreadNotifications(Long userId) {
         logger.info("Counting unread notifications for user ID: {}", userId);
-        return notificationRepository.countByUserIdAndReadFalse(userId);
+        return unreadCounters.unreadNotifications(userId);
     }
 
     @Override
     public void markAsRead(Long notificationId) {
         logger.info("Marking notification as read: {}", notificationId);
         Notification notification = getNotificationById(notificationId);
+        if (notification.isRead()) {
+            return;
+        }
         notification.setRead(true);
         notificationRepository.save(notification);
+        eventPublisher.publishEvent(MarkedReadEvent.notifications(notification.getUser().getId(), 1));
     }
 
     @Override
     public void markAllAsRead(Long userId) {
         logger.info("Marking all notifications as read for user ID: {}", userId);
         notificationRepository.markAllAsRead(userId);
+        eventPublisher.publishEvent(MarkedReadEvent.allNotifications(userId));
     }
 
+    // The create methods only queue the notification; NotificationDispatcher resolves the actor's
+    // name and writes it after the caller's transaction, and skips it when actor and recipient are the same
+
     @Override
     public void createPostLikeNotification(Long postId, Long likerId, Long authorId) {
-        // Don't notify if the liker is the author
-        if (likerId.equals(authorId)) {
-            return;
-        }
-        
-        try {
-            User liker = userRepository.findById(likerId)
-                    .orElseThrow(() -> new RuntimeException("Liker not found"));
-            
-            User author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new RuntimeException("Author not found"));
-            
-            Notification notification = new Notification();
-            notification.setUser(author);
-            notification.setType("POST_LIKE");
-            notification.setContent(liker.getFullName() + " liked your post");
-            notification.setRelatedId(postId);
-            
-            saveNotification(notification);
-        } catch (Exception e) {
-            logger.error("Error creating post like notification: {}", e.getMessage());
-        }
+        notificationDispatcher.enqueue(NotificationDispatcher.POST_LIKE, authorId, likerId, postId);
     }
 
     @Override
     public void createPostCommentNotification(Long postId, Long commenterId, Long authorId) {
-        // Don't notify if the commenter is the author
-        if (commenterId.equals(authorId)) {
-            return;
-        }
-        
-        try {
-            User commenter = userRepository.findById(commenterId)
-                    .orElseThrow(() -> new RuntimeException("Commenter not found"));
-            
-            User author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new RuntimeException("Author not found"));
-            
-            Notification notification = new Notification();
-            notification.setUser(author);
-            notification.setType("POST_COMMENT");
-            notification.setContent(commenter.getFullName() + " commented on your post");
-            notification.setRelatedId(postId);
-            
-            saveNotification(notification);
-        } catch (Exception e) {
-            logger.error("Error creating post comment notification: {}", e.getMessage());
-        }
+        notificationDispatcher.enqueue(NotificationDispatcher.POST_COMMENT, authorId, commenterId, postId);
     }
 
     @Override
     public void createFollowNotification(Long followerId, Long followingId) {
-        try {
-            User follower = userRepository.findById(followerId)
-                    .orElseThrow(() -> new RuntimeException("Follower not found"));
-            
-            User following = userRepository.findById(followingId)
-                    .orElseThrow(() -> new RuntimeException("Following not found"));
-            
-            Notification notification = new Notification();
-            notification.setUser(following);
-            notification.setType("FOLLOW");
-            notification.setContent(follower.getFullName() + " started following you");
-            notification.setRelatedId(followerId);
-            
-            saveNotification(notification);
-        } catch (Exception e) {
-            logger.error("Error creating follow notification: {}", e.getMessage());
-        }
+        notificationDispatcher.enqueue(NotificationDispatcher.FOLLOW, followingId, followerId, followerId);
     }
 
     @Override
     public void createMessageNotification(Long senderId, Long receiverId) {
-        try {
-            User sender = userRepository.findById(senderId)
-                    .orElseThrow(() -> new RuntimeException("Sender not found"));
-            
-            User receiver = userRepository.findById(receiverId)
-                    .orElseThrow(() -> new RuntimeException("Receiver not found"));
-            
-            Notification notification = new Notification();
-            notification.setUser(receiver);
-            notification.setType("MESSAGE");
-            notification.setContent("New message from " + sender.getFullName());
-            notification.setRelatedId(senderId);
-            
-            saveNotification(notification);
-        } catch (Exception e) {
-            logger.error("Error creating message notification: {}", e.getMessage());
-        }
+        notificationDispatcher.enqueue(NotificationDispatcher.MESSAGE, receiverId, senderId, senderId);
     }
 
     @Override
     public void createPostSolutionNotification(Long postId, Long solverId, Long authorId) {
-        // Don't notify if the solver is the author
-        if (solverId.equals(authorId)) {
-            return;
-        }
-        
-        try {
-            User solver = userRepository.findById(solverId)
-                    .orElseThrow(() -> new RuntimeException("Solver not found"));
-            
-            User author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new RuntimeException("Author not found"));
-            
-            Post post = postRepository.findById(postId)
-                    .orElseThrow(() -> new RuntimeException("Post not found"));
-            
-            Notification notification = new Notification();
-            notification.setUser(author);
-            notification.setType("POST_SOLUTION");
-            notification.setContent(solver.getFullName() + " provided a solution to your post");
-            notification.setRelatedId(postId);
-            
-            saveNotification(notification);
-        } catch (Exception e) {
-            logger.error("Error creating post solution notification: {}", e.getMessage());
-        }
+        notificationDispatcher.enqueue(NotificationDispatcher.POST_SOLUTION, authorId, solverId, postId);
     }
 }
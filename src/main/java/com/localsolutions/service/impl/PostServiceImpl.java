@@ -1,29 +1,55 @@
 package com.localsolutions.service.impl;
 
+import com.localsolutions.dto.LikerCursor;
+import com.localsolutions.dto.LikerDTO;
+import com.localsolutions.dto.PostCursor;
+import com.localsolutions.dto.PostDTO;
+import com.localsolutions.event.PostChangedEvent;
+import com.localsolutions.event.PostLikedEvent;
+import com.localsolutions.event.PostLikesChangedEvent;
+import com.localsolutions.exception.ResourceNotFoundException;
+import com.localsolutions.geo.PincodeDistance;
+import com.localsolutions.geo.PincodeGeoIndex;
 import com.localsolutions.model.Post;
 import com.localsolutions.model.PostCategory;
 import com.localsolutions.model.PostStatus;
 import com.localsolutions.model.PostType;
 import com.localsolutions.model.User;
+import com.localsolutions.query.PostQuery;
+import com.localsolutions.query.PostQueryEngine;
+import com.localsolutions.query.PostSort;
 import com.localsolutions.repository.PostRepository;
 import com.localsolutions.repository.UserRepository;
+import com.localsolutions.search.PostSearchEngine;
+import com.localsolutions.service.PostFeedCache;
+import com.localsolutions.service.PostQuerySampler;
 import com.localsolutions.service.PostService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
-@Service
+// Named for the @postService references in PostController's @PreAuthorize expressions
+@Service("postService")
 @Transactional
 public class PostServiceImpl implements PostService {
 
@@ -38,6 +64,53 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PostSearchEngine postSearchEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PincodeGeoIndex pincodeGeoIndex;
+
+    @Autowired
+    private PostFeedCache postFeedCache;
+
+    @Autowired
+    private PostQuerySampler postQuerySampler;
+
+    @Autowired
+    private PostQueryEngine postQueryEngine;
+
+    // Radius used by the /nearby feeds, and the largest radius a radius search may ask for
+    @Value("${post.nearby.radius-km:10}")
+    private double nearbyRadiusKm;
+
+    @Value("${post.nearby.max-radius-km:50}")
+    private double maxRadiusKm;
+
+    private static final int MAX_SLICE_SIZE = 100;
+
+    // Like/unlike write post_likes directly and move the counter in the same statement, so the
+    // post and its likers are never loaded. ON CONFLICT / DELETE keep both operations idempotent.
+    // Also returns the author and whether a row changed, so a like can be notified without another query
+    private static final String LIKE_SQL =
+            "WITH inserted AS (INSERT INTO post_likes (post_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING RETURNING post_id) " +
+            "UPDATE posts SET like_count = like_count + (SELECT COUNT(*) FROM inserted) WHERE id = ? " +
+            "RETURNING like_count, pincode, user_id, (SELECT COUNT(*) FROM inserted) AS changed";
+
+    private static final String UNLIKE_SQL =
+            "WITH deleted AS (DELETE FROM post_likes WHERE post_id = ? AND user_id = ? RETURNING post_id) " +
+            "UPDATE posts SET like_count = like_count - (SELECT COUNT(*) FROM deleted) WHERE id = ? " +
+            "RETURNING like_count, pincode, user_id, (SELECT COUNT(*) FROM deleted) AS changed";
+
+    // Newest likers first, seeking past the cursor on idx_post_likes_post_id_created_at_user_id.
+    // Likes still held by LikeWriteBuffer appear once they are flushed.
+    private static final String LIKERS_SQL =
+            "SELECT u.id, u.username, u.full_name, pl.created_at FROM post_likes pl JOIN users u ON u.id = pl.user_id " +
+            "WHERE pl.post_id = ? AND (pl.created_at, pl.user_id) < (?, ?) " +
+            "ORDER BY pl.created_at DESC, pl.user_id DESC LIMIT ?";
+
     @Override
     public Post createPost(Post post) {
         try {
@@ -65,7 +138,9 @@ public class PostServiceImpl implements PostService {
             post.setCreatedAt(LocalDateTime.now());
 
             // Save the post
-            return postRepository.save(post);
+            Post savedPost = postRepository.save(post);
+            eventPublisher.publishEvent(PostChangedEvent.created(savedPost));
+            return savedPost;
         } catch (Exception e) {
             logger.error("Error creating post: {}", e.getMessage());
             throw new RuntimeException("Failed to create post: " + e.getMessage());
@@ -74,13 +149,21 @@ public class PostServiceImpl implements PostService {
 
     @Override
     public Post getPostById(Long id) {
-        return postRepository.findById(id)
+        return postRepository.findWithAuthorById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Long getPostAuthorId(Long postId) {
+        return postRepository.findAuthorIdByPostId(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post not found with ID: " + postId));
+    }
+
     @Override
     public Post updatePost(Long id, Post postDetails) {
         Post post = getPostById(id);
+        String previousPincode = post.getPincode();
 
         // Only update these fields if they are not null in the postDetails
         if (postDetails.getContent() != null) {
@@ -96,47 +179,65 @@ public class PostServiceImpl implements PostService {
             post.setPincode(postDetails.getPincode());
         }
 
-        // Preserve the likedBy set
-        if (postDetails.getLikedBy() != null && !postDetails.getLikedBy().isEmpty()) {
-            post.setLikedBy(postDetails.getLikedBy());
-        }
-
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.updated(savedPost, previousPincode));
+        return savedPost;
     }
 
     @Override
     public void deletePost(Long id) {
-        postRepository.deleteById(id);
+        Post post = getPostById(id);
+        postRepository.delete(post);
+        eventPublisher.publishEvent(PostChangedEvent.deleted(post));
     }
 
     @Override
-    public Page<Post> getPostsByTypeAndStatus(PostType type, PostStatus status, Pageable pageable) {
-        return postRepository.findByTypeAndStatus(type, status, pageable);
+    public Page<PostDTO> findPosts(PostQuery query, Pageable pageable) {
+        if (query.hasText() && pageable.isPaged()) {
+            // The search engine may answer from its own index; it returns IDs in rank order
+            return toFeedPage(postSearchEngine.search(query, pageable));
+        }
+        return postQueryEngine.find(query, pageable);
     }
 
     @Override
-    public Page<Post> getPostsByCategoryAndPincode(PostCategory category, String pincode, Pageable pageable) {
-        return postRepository.findByCategoryAndPincode(category, pincode, pageable);
+    public Slice<PostDTO> findPostsAfter(PostQuery query, PostCursor cursor, int size) {
+        return postQueryEngine.findAfter(query, cursor, Math.max(1, Math.min(size, MAX_SLICE_SIZE)));
     }
 
     @Override
-    public Page<Post> getPostsByUserId(Long userId, Pageable pageable) {
-        return postRepository.findByUserId(userId, pageable);
+    public Page<PostDTO> getPostsByTypeAndStatus(PostType type, PostStatus status, Pageable pageable) {
+        return findPosts(PostQuery.builder().type(type).status(status).build(), pageable);
     }
 
     @Override
-    public List<Post> getPostsByStatusAndPincode(PostStatus status, String pincode) {
-        return postRepository.findByStatusAndPincode(status, pincode);
+    public Page<PostDTO> getPostsByCategoryAndPincode(PostCategory category, String pincode, Pageable pageable) {
+        return findPosts(PostQuery.builder().category(category).pincode(pincode).build(), pageable);
     }
 
     @Override
-    public Page<Post> getRelevantPosts(PostType type, PostStatus status, Long userId, Pageable pageable) {
-        return postRepository.findRelevantPosts(type, status, userId, pageable);
+    public Page<PostDTO> getPostsByUserId(Long userId, Pageable pageable) {
+        return findPosts(PostQuery.builder().authorId(userId).build(), pageable);
     }
 
     @Override
-    public Page<Post> getLocalCategoryPosts(PostType type, PostStatus status, PostCategory category, String pincode, Pageable pageable) {
-        return postRepository.findLocalCategoryPosts(type, status, category, pincode, pageable);
+    public List<PostDTO> getPostsByStatusAndPincode(PostStatus status, String pincode) {
+        return findPosts(PostQuery.builder().status(status).pincode(pincode).build(), Pageable.unpaged()).getContent();
+    }
+
+    @Override
+    public Page<PostDTO> getRelevantPosts(PostType type, PostStatus status, Long userId, Pageable pageable) {
+        // Relevant means posted in the user's own pincode
+        String pincode = userRepository.findById(userId).map(User::getPincode).orElse(null);
+        if (pincode == null) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return findPosts(PostQuery.builder().type(type).status(status).pincode(pincode).build(), pageable);
+    }
+
+    @Override
+    public Page<PostDTO> getLocalCategoryPosts(PostType type, PostStatus status, PostCategory category, String pincode, Pageable pageable) {
+        return findPosts(PostQuery.builder().type(type).status(status).category(category).pincode(pincode).build(), pageable);
     }
 
     @Override
@@ -146,66 +247,85 @@ public class PostServiceImpl implements PostService {
         if (status == PostStatus.RESOLVED) {
             post.setSolutionProvidedAt(LocalDateTime.now());
         }
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.updated(savedPost));
+        return savedPost;
     }
 
     @Override
-    public void likePost(Long postId, Long userId) {
-        Post post = getPostById(postId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!post.getLikedBy().contains(user)) {
-            post.getLikedBy().add(user);
-            postRepository.save(post);
-        }
+    public int likePost(Long postId, Long userId) {
+        return applyLikeChange(LIKE_SQL, postId, userId, true);
     }
 
     @Override
-    public void unlikePost(Long postId, Long userId) {
-        Post post = getPostById(postId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public int unlikePost(Long postId, Long userId) {
+        return applyLikeChange(UNLIKE_SQL, postId, userId, false);
+    }
 
-        post.getLikedBy().remove(user);
-        postRepository.save(post);
+    private int applyLikeChange(String sql, Long postId, Long userId, boolean liked) {
+        try {
+            LikeChange change = jdbcTemplate.queryForObject(sql,
+                    (rs, rowNum) -> new LikeChange(
+                            new PostLikesChangedEvent(postId, rs.getString("pincode"), rs.getInt("like_count")),
+                            rs.getLong("user_id"), rs.getInt("changed") > 0),
+                    postId, userId, postId);
+            PostLikesChangedEvent changed = change.event();
+            eventPublisher.publishEvent(changed);
+            if (liked && change.rowChanged()) {
+                eventPublisher.publishEvent(new PostLikedEvent(postId, change.authorId(), userId));
+            }
+            return changed.getLikeCount();
+        } catch (EmptyResultDataAccessException | DataIntegrityViolationException e) {
+            throw new ResourceNotFoundException("Post not found with ID: " + postId);
+        }
     }
 
     @Override
     public boolean isPostLikedByUser(Long postId, Long userId) {
-        Post post = getPostById(postId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return post.getLikedBy().contains(user);
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post not found");
+        }
+        return !postRepository.findLikedPostIds(userId, List.of(postId)).isEmpty();
     }
 
     @Override
-    public Page<Post> getAllPosts(Pageable pageable) {
-        Page<Post> posts = postRepository.findAll(pageable);
-        logger.info("Found {} posts in total", posts.getTotalElements());
-
-        // Log the distribution of categories
-        Map<PostCategory, Long> categoryCounts = new HashMap<>();
-        for (PostCategory category : PostCategory.values()) {
-            categoryCounts.put(category, 0L);
+    @Transactional(readOnly = true)
+    public Slice<LikerDTO> getLikersAfter(Long postId, LikerCursor cursor, int size) {
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found with ID: " + postId);
         }
+        int limit = Math.max(1, Math.min(size, MAX_SLICE_SIZE));
+        List<LikerDTO> likers = findLikers(postId, cursor, limit + 1);
+        boolean hasNext = likers.size() > limit;
+        return new SliceImpl<>(hasNext ? likers.subList(0, limit) : likers, Pageable.ofSize(limit), hasNext);
+    }
 
-        for (Post post : posts.getContent()) {
-            PostCategory category = post.getCategory();
-            categoryCounts.put(category, categoryCounts.getOrDefault(category, 0L) + 1);
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public List<LikerDTO> getLikersPreview(Long postId, int limit) {
+        return findLikers(postId, LikerCursor.FIRST, limit);
+    }
 
-        logger.info("Category distribution: {}", categoryCounts);
+    private List<LikerDTO> findLikers(Long postId, LikerCursor cursor, int limit) {
+        return jdbcTemplate.query(LIKERS_SQL,
+                (rs, rowNum) -> new LikerDTO(rs.getLong("id"), rs.getString("username"), rs.getString("full_name"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                postId, Timestamp.valueOf(cursor.getLikedAt()), cursor.getUserId(), limit);
+    }
 
+    @Override
+    public Page<PostDTO> getAllPosts(Pageable pageable) {
+        Page<PostDTO> posts = findPosts(PostQuery.all(), pageable);
+        logger.info("Found {} posts in total", posts.getTotalElements());
+        postQuerySampler.sample("All posts", posts);
         return posts;
     }
 
     @Override
-    public List<Post> getAllPostsWithoutPagination() {
+    public List<PostDTO> getAllPostsWithoutPagination() {
         try {
             logger.info("Fetching all posts from repository");
-            List<Post> posts = postRepository.findAll();
+            List<PostDTO> posts = findPosts(PostQuery.all(), Pageable.unpaged()).getContent();
             logger.info("Found {} posts in repository", posts.size());
             return posts;
         } catch (Exception e) {
@@ -215,11 +335,16 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> searchPosts(String searchTerm, Pageable pageable) {
+    public Page<PostDTO> searchPosts(String searchTerm, Pageable pageable) {
+        return searchPosts(searchTerm, null, null, pageable);
+    }
+
+    @Override
+    public Page<PostDTO> searchPosts(String searchTerm, List<PostCategory> categories, PostStatus status, Pageable pageable) {
         try {
-            logger.info("Searching posts with term: {}", searchTerm);
-            // Search in post content (case-insensitive)
-            Page<Post> posts = postRepository.findByContentContainingIgnoreCase(searchTerm, pageable);
+            logger.info("Searching posts with term: {}, categories: {}, status: {}", searchTerm, categories, status);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().text(searchTerm).categories(categories).status(status)
+                    .sort(PostSort.RELEVANCE).build(), pageable);
             logger.info("Found {} posts matching search term", posts.getTotalElements());
             return posts;
         } catch (Exception e) {
@@ -229,13 +354,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPopularPosts(Pageable pageable) {
+    public Page<PostDTO> getPopularPosts(Pageable pageable) {
         try {
             logger.info("Fetching popular posts");
-            // For now, we'll define popular as posts with most likes
-            // This would need to be implemented in the repository
-            // For simplicity, we'll just return all posts for now
-            Page<Post> posts = postRepository.findAll(pageable);
+            // Popular means most liked, sorted on the indexed like_count column
+            Page<PostDTO> posts = findPosts(PostQuery.builder().sort(PostSort.POPULAR).build(), pageable);
             logger.info("Found {} popular posts", posts.getTotalElements());
             return posts;
         } catch (Exception e) {
@@ -245,11 +368,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getRecentPosts(Pageable pageable) {
+    public Page<PostDTO> getRecentPosts(Pageable pageable) {
         try {
             logger.info("Fetching recent posts");
             // Find posts ordered by creation date (newest first)
-            Page<Post> posts = postRepository.findAllByOrderByCreatedAtDesc(pageable);
+            Page<PostDTO> posts = findPosts(PostQuery.all(), pageable);
             logger.info("Found {} recent posts", posts.getTotalElements());
             return posts;
         } catch (Exception e) {
@@ -259,10 +382,10 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByCategory(PostCategory category, Pageable pageable) {
+    public Page<PostDTO> getPostsByCategory(PostCategory category, Pageable pageable) {
         try {
             logger.info("Fetching posts by category: {}", category);
-            Page<Post> posts = postRepository.findByCategory(category, pageable);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().category(category).build(), pageable);
             logger.info("Found {} posts for category: {}", posts.getTotalElements(), category);
             return posts;
         } catch (Exception e) {
@@ -272,101 +395,15 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByCategories(List<PostCategory> categories, Pageable pageable) {
-        try {
-            if (categories == null || categories.isEmpty()) {
-                logger.warn("No categories provided, returning all posts");
-                return getAllPosts(pageable);
-            }
-
-            logger.info("Fetching posts by categories: {}", categories);
-            // Get all posts first for comparison
-            Page<Post> allPosts = getAllPosts(pageable);
-            logger.info("Total posts in database: {}", allPosts.getTotalElements());
-
-            // Log the categories of all posts
-            logger.info("Categories of all posts: {}",
-                allPosts.getContent().stream()
-                    .map(Post::getCategory)
-                    .distinct()
-                    .collect(Collectors.toList()));
-
-            // Direct SQL query to check what posts are in the database
-            logger.info("Executing direct SQL query to check posts");
-            List<Map<String, Object>> sqlPosts = jdbcTemplate.queryForList("SELECT id, category, content FROM post");
-            logger.info("Found {} posts using direct SQL", sqlPosts.size());
-            sqlPosts.forEach(post -> {
-                logger.info("SQL Query - Post ID: {}, Category: {}, Content: {}",
-                    post.get("id"), post.get("category"),
-                    ((String) post.get("content")).length() > 50 ? ((String) post.get("content")).substring(0, 50) + "..." : post.get("content"));
-            });
-
-            // Direct SQL query to check posts with the specific categories
-            for (PostCategory cat : categories) {
-                logger.info("Executing direct SQL query to check posts with category: {}", cat);
-                List<Map<String, Object>> catPosts = jdbcTemplate.queryForList(
-                    "SELECT id, category, content FROM post WHERE category = ?",
-                    cat.name());
-                logger.info("Found {} posts with category {} using direct SQL", catPosts.size(), cat);
-                catPosts.forEach(post -> {
-                    logger.info("SQL Query - Post ID: {}, Category: {}, Content: {}",
-                        post.get("id"), post.get("category"),
-                        ((String) post.get("content")).length() > 50 ? ((String) post.get("content")).substring(0, 50) + "..." : post.get("content"));
-                });
-            }
-
-            // Now get posts filtered by categories
-            logger.info("Calling repository.findByCategoryIn with categories: {}", categories);
-            Page<Post> posts;
-            try {
-                posts = postRepository.findByCategoryIn(categories, pageable);
-                logger.info("Found {} posts for categories: {}", posts.getTotalElements(), categories);
-            } catch (Exception e) {
-                logger.error("Error using JPQL query for categories: {}", e.getMessage());
-                logger.info("Falling back to native query");
-                // Convert PostCategory enum to string for native query
-                List<String> categoryStrings = categories.stream()
-                    .map(Enum::name)
-                    .collect(Collectors.toList());
-                posts = postRepository.findByCategoryInNative(categoryStrings, pageable);
-                logger.info("Found {} posts using native query for categories: {}", posts.getTotalElements(), categoryStrings);
-            }
-
-            // Log each post that was found
-            if (posts.hasContent()) {
-                posts.getContent().forEach(post -> {
-                    logger.info("Found post - ID: {}, Category: {}, Content: {}",
-                        post.getId(), post.getCategory(),
-                        post.getContent().length() > 50 ? post.getContent().substring(0, 50) + "..." : post.getContent());
-                });
-            } else {
-                logger.warn("No posts found for categories: {}", categories);
-            }
-
-            // Log the first few posts for debugging
-            if (posts.hasContent()) {
-                List<Post> content = posts.getContent();
-                int count = Math.min(content.size(), 5);
-                for (int i = 0; i < count; i++) {
-                    Post post = content.get(i);
-                    logger.info("Post {}: id={}, category={}, content={}",
-                        i, post.getId(), post.getCategory(),
-                        post.getContent().length() > 50 ? post.getContent().substring(0, 50) + "..." : post.getContent());
-                }
-            }
-
-            return posts;
-        } catch (Exception e) {
-            logger.error("Error fetching posts by categories: {}", categories, e);
-            throw e;
-        }
+    public Page<PostDTO> getPostsByCategories(List<PostCategory> categories, Pageable pageable) {
+        return getPostsByCategoriesAndStatus(categories, null, pageable);
     }
 
     @Override
-    public Page<Post> getPostsByStatus(PostStatus status, Pageable pageable) {
+    public Page<PostDTO> getPostsByStatus(PostStatus status, Pageable pageable) {
         try {
             logger.info("Fetching posts by status: {}", status);
-            Page<Post> posts = postRepository.findByStatus(status, pageable);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().status(status).build(), pageable);
             logger.info("Found {} posts for status: {}", posts.getTotalElements(), status);
             return posts;
         } catch (Exception e) {
@@ -376,10 +413,10 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByCategoryAndStatus(PostCategory category, PostStatus status, Pageable pageable) {
+    public Page<PostDTO> getPostsByCategoryAndStatus(PostCategory category, PostStatus status, Pageable pageable) {
         try {
             logger.info("Fetching posts by category: {} and status: {}", category, status);
-            Page<Post> posts = postRepository.findByCategoryAndStatus(category, status, pageable);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().category(category).status(status).build(), pageable);
             logger.info("Found {} posts for category: {} and status: {}", posts.getTotalElements(), category, status);
             return posts;
         } catch (Exception e) {
@@ -389,29 +426,13 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByCategoriesAndStatus(List<PostCategory> categories, PostStatus status, Pageable pageable) {
+    public Page<PostDTO> getPostsByCategoriesAndStatus(List<PostCategory> categories, PostStatus status, Pageable pageable) {
         try {
-            if (categories == null || categories.isEmpty()) {
-                logger.warn("No categories provided, returning posts by status: {}", status);
-                return getPostsByStatus(status, pageable);
-            }
-
             logger.info("Fetching posts by categories: {} and status: {}", categories, status);
-            Page<Post> posts = postRepository.findByCategoryInAndStatus(categories, status, pageable);
+            // Unset filters are left out of the query, so this also covers no categories and no status
+            Page<PostDTO> posts = findPosts(PostQuery.builder().categories(categories).status(status).build(), pageable);
             logger.info("Found {} posts for categories: {} and status: {}", posts.getTotalElements(), categories, status);
-
-            // Log the first few posts for debugging
-            if (posts.hasContent()) {
-                List<Post> content = posts.getContent();
-                int count = Math.min(content.size(), 5);
-                for (int i = 0; i < count; i++) {
-                    Post post = content.get(i);
-                    logger.info("Post {}: id={}, category={}, status={}, content={}",
-                        i, post.getId(), post.getCategory(), post.getStatus(),
-                        post.getContent().length() > 50 ? post.getContent().substring(0, 50) + "..." : post.getContent());
-                }
-            }
-
+            postQuerySampler.sample("Categories " + categories + " and status " + status, posts);
             return posts;
         } catch (Exception e) {
             logger.error("Error fetching posts by categories: {} and status: {}", categories, status, e);
@@ -420,10 +441,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByPincode(String pincode, Pageable pageable) {
+    public Page<PostDTO> getPostsByPincode(String pincode, Pageable pageable) {
         try {
             logger.info("Fetching posts by pincode: {}", pincode);
-            Page<Post> posts = postRepository.findByPincode(pincode, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.recent(pincode, null, null, null),
+                    PostQuery.builder().pincode(pincode).build(), pageable);
             logger.info("Found {} posts for pincode: {}", posts.getTotalElements(), pincode);
             return posts;
         } catch (Exception e) {
@@ -433,10 +455,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByPincodeAndCategory(String pincode, PostCategory category, Pageable pageable) {
+    public Page<PostDTO> getPostsByPincodeAndCategory(String pincode, PostCategory category, Pageable pageable) {
         try {
             logger.info("Fetching posts by pincode: {} and category: {}", pincode, category);
-            Page<Post> posts = postRepository.findByPincodeAndCategory(pincode, category, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.recent(pincode, null, null, category),
+                    PostQuery.builder().pincode(pincode).category(category).build(), pageable);
             logger.info("Found {} posts for pincode: {} and category: {}", posts.getTotalElements(), pincode, category);
             return posts;
         } catch (Exception e) {
@@ -446,10 +469,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByPincodeAndType(String pincode, PostType type, Pageable pageable) {
+    public Page<PostDTO> getPostsByPincodeAndType(String pincode, PostType type, Pageable pageable) {
         try {
             logger.info("Fetching posts by pincode: {} and type: {}", pincode, type);
-            Page<Post> posts = postRepository.findByPincodeAndType(pincode, type, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.recent(pincode, type, null, null),
+                    PostQuery.builder().pincode(pincode).type(type).build(), pageable);
             logger.info("Found {} posts for pincode: {} and type: {}", posts.getTotalElements(), pincode, type);
             return posts;
         } catch (Exception e) {
@@ -459,10 +483,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByPincodeTypeAndStatus(String pincode, PostType type, PostStatus status, Pageable pageable) {
+    public Page<PostDTO> getPostsByPincodeTypeAndStatus(String pincode, PostType type, PostStatus status, Pageable pageable) {
         try {
             logger.info("Fetching posts by pincode: {}, type: {}, and status: {}", pincode, type, status);
-            Page<Post> posts = postRepository.findByPincodeAndTypeAndStatus(pincode, type, status, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.recent(pincode, type, status, null),
+                    PostQuery.builder().pincode(pincode).type(type).status(status).build(), pageable);
             logger.info("Found {} posts for pincode: {}, type: {}, and status: {}", posts.getTotalElements(), pincode, type, status);
             return posts;
         } catch (Exception e) {
@@ -472,10 +497,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByPincodeTypeStatusAndCategory(String pincode, PostType type, PostStatus status, PostCategory category, Pageable pageable) {
+    public Page<PostDTO> getPostsByPincodeTypeStatusAndCategory(String pincode, PostType type, PostStatus status, PostCategory category, Pageable pageable) {
         try {
             logger.info("Fetching posts by pincode: {}, type: {}, status: {}, and category: {}", pincode, type, status, category);
-            Page<Post> posts = postRepository.findByPincodeAndTypeAndStatusAndCategory(pincode, type, status, category, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.recent(pincode, type, status, category),
+                    PostQuery.builder().pincode(pincode).type(type).status(status).category(category).build(), pageable);
             logger.info("Found {} posts for pincode: {}, type: {}, status: {}, and category: {}", posts.getTotalElements(), pincode, type, status, category);
             return posts;
         } catch (Exception e) {
@@ -485,10 +511,10 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByNearbyPincode(String pincode, Pageable pageable) {
+    public Page<PostDTO> getPostsByNearbyPincode(String pincode, Pageable pageable) {
         try {
             logger.info("Fetching posts by nearby pincode: {}", pincode);
-            Page<Post> posts = postRepository.findByNearbyPincode(pincode, pageable);
+            Page<PostDTO> posts = findPosts(nearby(pincode).build(), pageable);
             logger.info("Found {} posts for nearby pincode: {}", posts.getTotalElements(), pincode);
             return posts;
         } catch (Exception e) {
@@ -498,10 +524,10 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPostsByNearbyPincodeAndCategory(String pincode, PostCategory category, Pageable pageable) {
+    public Page<PostDTO> getPostsByNearbyPincodeAndCategory(String pincode, PostCategory category, Pageable pageable) {
         try {
             logger.info("Fetching posts by nearby pincode: {} and category: {}", pincode, category);
-            Page<Post> posts = postRepository.findByNearbyPincodeAndCategory(pincode, category, pageable);
+            Page<PostDTO> posts = findPosts(nearby(pincode).category(category).build(), pageable);
             logger.info("Found {} posts for nearby pincode: {} and category: {}", posts.getTotalElements(), pincode, category);
             return posts;
         } catch (Exception e) {
@@ -511,10 +537,35 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> getPopularPostsByPincode(String pincode, Pageable pageable) {
+    public Page<PostDTO> getPostsWithinRadius(String pincode, double radiusKm, PostCategory category, Pageable pageable) {
+        try {
+            logger.info("Fetching posts within {} km of pincode: {} and category: {}", radiusKm, pincode, category);
+            if (!(radiusKm > 0) || radiusKm > maxRadiusKm) {
+                throw new IllegalArgumentException("Radius must be greater than 0 and at most " + maxRadiusKm + " km");
+            }
+            if (!pincodeGeoIndex.contains(pincode)) {
+                throw new ResourceNotFoundException("No location known for pincode: " + pincode);
+            }
+
+            // The pincodes in range come from PincodeGeoIndex with their distances, so the database
+            // only does one posts(pincode, ...) index lookup per pincode
+            List<PincodeDistance> inRange = pincodeGeoIndex.within(pincode, radiusKm);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().nearby(inRange).category(category)
+                    .sort(PostSort.DISTANCE).build(), pageable);
+            logger.info("Found {} posts in {} pincodes within {} km of pincode: {}", posts.getTotalElements(), inRange.size(), radiusKm, pincode);
+            return posts;
+        } catch (Exception e) {
+            logger.error("Error fetching posts within {} km of pincode: {}", radiusKm, pincode, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<PostDTO> getPopularPostsByPincode(String pincode, Pageable pageable) {
         try {
             logger.info("Fetching popular posts by pincode: {}", pincode);
-            Page<Post> posts = postRepository.findPopularPostsByPincode(pincode, pageable);
+            Page<PostDTO> posts = cachedFeed(PostFeedCache.Key.popular(pincode),
+                    PostQuery.builder().pincode(pincode).sort(PostSort.POPULAR).build(), pageable);
             logger.info("Found {} popular posts for pincode: {}", posts.getTotalElements(), pincode);
             return posts;
         } catch (Exception e) {
@@ -524,10 +575,11 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    public Page<Post> searchPostsByContentAndPincode(String query, String pincode, Pageable pageable) {
+    public Page<PostDTO> searchPostsByContentAndPincode(String query, String pincode, Pageable pageable) {
         try {
             logger.info("Searching posts by content: {} and pincode: {}", query, pincode);
-            Page<Post> posts = postRepository.searchPostsByContentAndPincode(query, pincode, pageable);
+            Page<PostDTO> posts = findPosts(PostQuery.builder().text(query).pincode(pincode)
+                    .sort(PostSort.RELEVANCE).build(), pageable);
             logger.info("Found {} posts matching content: {} and pincode: {}", posts.getTotalElements(), query, pincode);
             return posts;
         } catch (Exception e) {
@@ -536,6 +588,83 @@ public class PostServiceImpl implements PostService {
         }
     }
 
+    @Override
+    public Slice<PostDTO> getPostsAfter(List<PostCategory> categories, PostStatus status, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().categories(categories).status(status).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByTypeAndStatusAfter(PostType type, PostStatus status, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().type(type).status(status).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByUserIdAfter(Long userId, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().authorId(userId).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByPincodeAfter(String pincode, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().pincode(pincode).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByPincodeAndCategoryAfter(String pincode, PostCategory category, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().pincode(pincode).category(category).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByPincodeAndTypeAfter(String pincode, PostType type, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().pincode(pincode).type(type).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByPincodeTypeAndStatusAfter(String pincode, PostType type, PostStatus status, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().pincode(pincode).type(type).status(status).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByPincodeTypeStatusAndCategoryAfter(String pincode, PostType type, PostStatus status, PostCategory category, PostCursor cursor, int size) {
+        return findPostsAfter(PostQuery.builder().pincode(pincode).type(type).status(status).category(category).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByNearbyPincodeAfter(String pincode, PostCursor cursor, int size) {
+        return findPostsAfter(nearby(pincode).build(), cursor, size);
+    }
+
+    @Override
+    public Slice<PostDTO> getPostsByNearbyPincodeAndCategoryAfter(String pincode, PostCategory category, PostCursor cursor, int size) {
+        return findPostsAfter(nearby(pincode).category(category).build(), cursor, size);
+    }
+
+    private Page<PostDTO> cachedFeed(PostFeedCache.Key key, PostQuery query, Pageable pageable) {
+        return postFeedCache.get(key, pageable, page -> postQueryEngine.find(query, page));
+    }
+
+    // Pincodes within the nearby radius; when the pincode has no known location the nearby feeds
+    // fall back to matching the 3-digit prefix
+    private PostQuery.PostQueryBuilder nearby(String pincode) {
+        List<PincodeDistance> inRange = pincodeGeoIndex.within(pincode, nearbyRadiusKm);
+        return inRange.isEmpty()
+                ? PostQuery.builder().pincodePrefix(pincode)
+                : PostQuery.builder().nearby(inRange);
+    }
+
+    // Loads feed rows for a page of post IDs, keeping the order of the IDs (e.g. search rank)
+    private Page<PostDTO> toFeedPage(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, PostDTO> rows = postRepository.findFeedByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(PostDTO::getId, dto -> dto));
+        List<PostDTO> ordered = ids.getContent().stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, ids.getPageable(), ids.getTotalElements());
+    }
+
     @Override
     public long countPosts() {
         try {
@@ -561,4 +690,8 @@ public class PostServiceImpl implements PostService {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    // A like statement's result: the new count, the post's author and whether a row was inserted or deleted
+    private record LikeChange(PostLikesChangedEvent event, Long authorId, boolean rowChanged) {
+    }
+}
@@ -1,11 +1,13 @@
 package com.localsolutions.service.impl;
 
+import com.localsolutions.event.UserChangedEvent;
 import com.localsolutions.model.User;
 import com.localsolutions.model.UserRole;
 import com.localsolutions.repository.UserRepository;
 import com.localsolutions.service.UserService;
 import com.localsolutions.exception.UserRegistrationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -26,6 +28,7 @@ public class UserServiceImpl implements UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public User createUser(User user) {
@@ -86,6 +89,11 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByUsername(username);
     }
 
+    @Override
+    public Optional<Long> getUserIdByUsername(String username) {
+        return userRepository.findIdByUsername(username);
+    }
+
     @Override
     public User updateUser(User user) {
         logger.info("Updating user with ID: {}", user.getId());
@@ -105,12 +113,16 @@ public class UserServiceImpl implements UserService {
             logger.debug("Password updated for user: {}", existingUser.getEmail());
         }
 
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        // Cached principals carry the role; drop them once the change is committed
+        eventPublisher.publishEvent(UserChangedEvent.updated(savedUser));
+        return savedUser;
     }
 
     @Override
     public void deleteUser(Long id) {
         logger.info("Deleting user with ID: {}", id);
+        userRepository.findById(id).ifPresent(user -> eventPublisher.publishEvent(UserChangedEvent.deleted(user)));
         userRepository.deleteById(id);
     }
 
@@ -0,0 +1,76 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Loads db/data/pincode_locations.csv (pincode,latitude,longitude) into pincode_locations.
+ * Repeatable: the checksum is taken over the CSV, so Flyway re-runs it whenever the file changes.
+ */
+public class R__Load_pincode_locations extends BaseJavaMigration {
+
+    private static final String CSV = "db/data/pincode_locations.csv";
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public Integer getChecksum() {
+        CRC32 crc = new CRC32();
+        readLines().forEach(line -> crc.update(line.getBytes(StandardCharsets.UTF_8)));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String sql = "INSERT INTO pincode_locations (pincode, latitude, longitude) VALUES (?, ?, ?) " +
+                "ON CONFLICT (pincode) DO UPDATE SET latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude";
+        try (PreparedStatement statement = context.getConnection().prepareStatement(sql)) {
+            int pending = 0;
+            for (String line : readLines()) {
+                String[] fields = line.split(",");
+                statement.setString(1, fields[0].trim());
+                statement.setDouble(2, Double.parseDouble(fields[1].trim()));
+                statement.setDouble(3, Double.parseDouble(fields[2].trim()));
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    // Data lines only; blank lines and # comments are skipped
+    private List<String> readLines() {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(CSV);
+        if (in == null) {
+            throw new IllegalStateException("Missing " + CSV);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+}
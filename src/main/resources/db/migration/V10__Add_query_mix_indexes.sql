@@ -0,0 +1,48 @@
+-- Indexes for the queries the application actually runs (PostQueryEngine shapes and the
+-- message, notification, comment and like repositories). benchmarks/sql/index_plans.sql
+-- seeds 1M posts and checks that every one of these queries is answered from an index.
+
+-- Posts: the single-column indexes from V1 are prefixes of the (..., created_at DESC, id DESC)
+-- indexes added in V6, so they only cost writes
+DROP INDEX IF EXISTS idx_posts_pincode;
+DROP INDEX IF EXISTS idx_posts_user_id;
+DROP INDEX IF EXISTS idx_posts_type_status;
+DROP INDEX IF EXISTS idx_posts_category;
+
+-- Pincode feeds filtered by type, status and category (the full location feed shape), and by
+-- status alone (/status/{status}/pincode/{pincode} and GET /api/posts?status=&pincode=)
+CREATE INDEX idx_posts_pincode_type_status_category_created_at_id ON posts(pincode, type, status, category, created_at DESC, id DESC);
+CREATE INDEX idx_posts_pincode_status_created_at_id ON posts(pincode, status, created_at DESC, id DESC);
+
+-- Popular order is like_count DESC, created_at DESC, id DESC; the V5 indexes stop at created_at,
+-- which leaves an incremental sort on id for every page
+DROP INDEX IF EXISTS idx_posts_like_count;
+DROP INDEX IF EXISTS idx_posts_pincode_like_count;
+CREATE INDEX idx_posts_like_count_created_at_id ON posts(like_count DESC, created_at DESC, id DESC);
+CREATE INDEX idx_posts_pincode_like_count_created_at_id ON posts(pincode, like_count DESC, created_at DESC, id DESC);
+
+-- Conversations match (sender, receiver) in both directions ordered by time; one index serves
+-- both arms of the OR and the per-pair MAX(created_at) in findLatestMessagesForUser
+CREATE INDEX idx_messages_sender_receiver_created_at ON messages(sender_id, receiver_id, created_at);
+
+-- Unread lookups filter on read = false, which only ever matches a small part of either table.
+-- Partial indexes replace the boolean indexes from V4, which the planner never uses.
+DROP INDEX IF EXISTS idx_messages_read;
+DROP INDEX IF EXISTS idx_notifications_read;
+CREATE INDEX idx_messages_receiver_unread ON messages(receiver_id) WHERE read = false;
+CREATE INDEX idx_notifications_user_unread_created_at ON notifications(user_id, created_at DESC) WHERE read = false;
+
+-- Notification lists are per user, newest first
+DROP INDEX IF EXISTS idx_notifications_user_id;
+CREATE INDEX idx_notifications_user_id_created_at ON notifications(user_id, created_at DESC);
+
+-- Comments are listed per post newest first and per author; comments.user_id had no index,
+-- which also made deleting a user scan every comment for the cascade
+DROP INDEX IF EXISTS idx_comments_post_id;
+CREATE INDEX idx_comments_post_id_created_at ON comments(post_id, created_at DESC);
+CREATE INDEX idx_comments_user_id ON comments(user_id);
+
+-- Liked state is resolved per user for a page of posts (user_id = ? AND post_id IN (...)).
+-- The (post_id, user_id) primary key already covers lookups by post.
+DROP INDEX IF EXISTS idx_post_likes_post_id;
+CREATE INDEX idx_post_likes_user_id_post_id ON post_likes(user_id, post_id);
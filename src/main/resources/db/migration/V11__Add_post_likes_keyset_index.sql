@@ -0,0 +1,6 @@
+-- Keyset pagination of a post's likers over (created_at DESC, user_id DESC).
+-- Every like needs a time to appear in the likers list.
+UPDATE post_likes SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE post_likes ALTER COLUMN created_at SET NOT NULL;
+
+CREATE INDEX idx_post_likes_post_id_created_at_user_id ON post_likes(post_id, created_at DESC, user_id DESC);
@@ -0,0 +1,5 @@
+-- Message and Notification ids come from their sequences in blocks of 50 (pooled optimizer),
+-- which lets Hibernate batch their inserts. Rows inserted through the column default
+-- still take the next value, so ids from both paths never collide.
+ALTER SEQUENCE messages_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- Token revocations shared by every instance (PostgresTokenRevocationBackend).
+-- Times are epoch milliseconds; revoked_at_ms comes from the database clock so that every
+-- instance pulls new rows against the same clock.
+CREATE TABLE revoked_tokens (
+    token_id VARCHAR(64) PRIMARY KEY,
+    expires_at_ms BIGINT NOT NULL,
+    revoked_at_ms BIGINT NOT NULL DEFAULT (EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::BIGINT
+);
+
+CREATE INDEX idx_revoked_tokens_revoked_at_ms ON revoked_tokens(revoked_at_ms);
+CREATE INDEX idx_revoked_tokens_expires_at_ms ON revoked_tokens(expires_at_ms);
@@ -0,0 +1,12 @@
+-- Notifications of the same type about the same thing (same user, type and related_id) that arrive
+-- within one window are collapsed into a single row (NotificationDispatcher). actor_count counts the
+-- actors folded into the row and actor_ids holds the latest of them, newest first. window_start is the
+-- start of the window the row collects; rows without one, including every row written before this
+-- migration, are never collapsed into.
+ALTER TABLE notifications
+    ADD COLUMN actor_count INTEGER NOT NULL DEFAULT 1,
+    ADD COLUMN actor_ids BIGINT[],
+    ADD COLUMN window_start TIMESTAMP;
+
+-- Arbiter of the upsert. NULLs are distinct, so rows without a window or a related_id never conflict
+CREATE UNIQUE INDEX idx_notifications_aggregate ON notifications(user_id, type, related_id, window_start);
@@ -0,0 +1,10 @@
+-- From here on actor_ids holds every actor folded into an aggregated notification, newest first, so an
+-- actor who comes back to a row is recognised however many others came in between and is not counted
+-- twice. NotificationDTO shows the latest few of them.
+-- Rows aggregated before this kept only their latest three actors and cannot tell a returning actor from
+-- a new one, so their windows are closed: later notifications start a new row instead of being counted
+-- into them.
+UPDATE notifications
+SET window_start = NULL
+WHERE window_start IS NOT NULL
+  AND actor_count > cardinality(actor_ids);
@@ -0,0 +1,23 @@
+-- The actors of a notification that is still collecting them, one row each, so that an actor who comes
+-- back to it is recognised by a primary key lookup (NotificationDispatcher). They replace the complete
+-- actor_ids arrays of V15, which every upsert rewrote and scanned. window_start lets the rows of closed
+-- windows be deleted, since nothing is folded into those notifications any more.
+CREATE TABLE notification_actors (
+    notification_id BIGINT NOT NULL,
+    actor_id BIGINT NOT NULL,
+    window_start TIMESTAMP NOT NULL,
+    PRIMARY KEY (notification_id, actor_id),
+    FOREIGN KEY (notification_id) REFERENCES notifications(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_actors_window_start ON notification_actors(window_start);
+
+-- Notifications still in a window have held all their actors since V15
+INSERT INTO notification_actors (notification_id, actor_id, window_start)
+SELECT n.id, a.actor_id, n.window_start
+FROM notifications n, unnest(n.actor_ids) AS a(actor_id)
+WHERE n.window_start IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+-- actor_ids goes back to the latest three actors, newest first
+UPDATE notifications SET actor_ids = actor_ids[1:3] WHERE cardinality(actor_ids) > 3;
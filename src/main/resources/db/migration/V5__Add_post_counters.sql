@@ -0,0 +1,12 @@
+-- Denormalized like/comment counters on posts.
+-- Kept current by PostServiceImpl/CommentServiceImpl and repaired by PostCounterReconciler.
+ALTER TABLE posts ADD COLUMN like_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE posts ADD COLUMN comment_count INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill from existing likes and comments
+UPDATE posts p SET like_count = (SELECT COUNT(*) FROM post_likes pl WHERE pl.post_id = p.id);
+UPDATE posts p SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id);
+
+-- Create indexes for popularity sorting
+CREATE INDEX idx_posts_like_count ON posts(like_count DESC, created_at DESC);
+CREATE INDEX idx_posts_pincode_like_count ON posts(pincode, like_count DESC, created_at DESC);
@@ -0,0 +1,17 @@
+-- Keyset pagination over (created_at DESC, id DESC).
+-- Every post needs a creation time to appear in cursor feeds.
+UPDATE posts SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+ALTER TABLE posts ALTER COLUMN created_at SET NOT NULL;
+
+-- Create indexes matching each feed's equality filters followed by the seek columns
+CREATE INDEX idx_posts_created_at_id ON posts(created_at DESC, id DESC);
+CREATE INDEX idx_posts_status_created_at_id ON posts(status, created_at DESC, id DESC);
+CREATE INDEX idx_posts_category_created_at_id ON posts(category, created_at DESC, id DESC);
+CREATE INDEX idx_posts_type_status_created_at_id ON posts(type, status, created_at DESC, id DESC);
+CREATE INDEX idx_posts_user_id_created_at_id ON posts(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_posts_pincode_created_at_id ON posts(pincode, created_at DESC, id DESC);
+CREATE INDEX idx_posts_pincode_category_created_at_id ON posts(pincode, category, created_at DESC, id DESC);
+CREATE INDEX idx_posts_pincode_type_status_created_at_id ON posts(pincode, type, status, created_at DESC, id DESC);
+
+-- Nearby feeds match on the 3-digit pincode prefix (Hibernate renders SUBSTRING as substr)
+CREATE INDEX idx_posts_pincode_prefix_created_at_id ON posts(substr(pincode, 1, 3), created_at DESC, id DESC);
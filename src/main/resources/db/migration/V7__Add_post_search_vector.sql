@@ -0,0 +1,9 @@
+-- Full-text search over post content.
+-- The tsvector is a generated column, so PostgreSQL keeps it current on every insert and update.
+ALTER TABLE posts ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+
+-- Create indexes for search
+-- Pincode/category/status filters are combined with this index through the existing btree
+-- indexes (bitmap AND), which keeps the GIN index small enough to win for plain text searches.
+CREATE INDEX idx_posts_search_vector ON posts USING GIN (search_vector);
@@ -0,0 +1,8 @@
+-- Pincode centroids used for radius-based post discovery.
+-- Rows are loaded from db/data/pincode_locations.csv by the repeatable migration
+-- db.migration.R__Load_pincode_locations, which re-runs whenever the CSV changes.
+CREATE TABLE pincode_locations (
+    pincode VARCHAR(10) PRIMARY KEY,
+    latitude DOUBLE PRECISION NOT NULL,
+    longitude DOUBLE PRECISION NOT NULL
+);
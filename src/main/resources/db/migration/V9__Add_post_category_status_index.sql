@@ -0,0 +1,4 @@
+-- Multi-category feeds filter on category IN (...) with an optional status. The (category, ...)
+-- index from V6 covers the category-only case; this one lets category + status be answered
+-- from one index range per category instead of filtering the category range by status.
+CREATE INDEX idx_posts_category_status_created_at_id ON posts(category, status, created_at DESC, id DESC);